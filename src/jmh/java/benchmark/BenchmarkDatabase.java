@@ -0,0 +1,113 @@
+package benchmark;
+
+import dto.CopyLoadResult;
+import dto.UserRequestDto;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import lombok.extern.slf4j.Slf4j;
+import org.testcontainers.containers.PostgreSQLContainer;
+import repository.DatabaseMigrations;
+import repository.TestProperties;
+import repository.UnitOfWork;
+import repository.UserCopyLoader;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * База для бенчмарков: persistence unit {@code test-container} поверх Testcontainers PostgreSQL.
+ * Если задана переменная окружения {@code BENCHMARK_JDBC_URL}, используется уже запущенная база
+ * (учетные данные берутся из {@code BENCHMARK_JDBC_USER} и {@code BENCHMARK_JDBC_PASSWORD}).
+ */
+@Slf4j
+class BenchmarkDatabase implements AutoCloseable {
+    private static final int COPY_CHUNK_SIZE = 50_000;
+
+    private final PostgreSQLContainer<?> container;
+    private final EntityManagerFactory emf;
+    private final UnitOfWork unitOfWork;
+
+    private BenchmarkDatabase(PostgreSQLContainer<?> container, String url, String username, String password,
+                              Map<String, Object> overrides) {
+        Map<String, Object> settings = new HashMap<>(Map.of(
+                "hibernate.connection.url", url,
+                "hibernate.connection.username", username,
+                "hibernate.connection.password", password,
+                "hibernate.hbm2ddl.auto", "none",
+                "hibernate.show_sql", "false"
+        ));
+        settings.putAll(overrides);
+        this.container = container;
+        this.emf = Persistence.createEntityManagerFactory("test-container", settings);
+        DatabaseMigrations.migrate(emf);
+        this.unitOfWork = new UnitOfWork(emf);
+    }
+
+    static BenchmarkDatabase start() {
+        return start(Map.of());
+    }
+
+    static BenchmarkDatabase start(Map<String, Object> overrides) {
+        String url = System.getenv("BENCHMARK_JDBC_URL");
+        if (url != null) {
+            log.info("Бенчмарк использует внешнюю базу: {}", url);
+            return new BenchmarkDatabase(null, url,
+                    System.getenv().getOrDefault("BENCHMARK_JDBC_USER", "postgres"),
+                    System.getenv().getOrDefault("BENCHMARK_JDBC_PASSWORD", ""),
+                    overrides);
+        }
+
+        PostgreSQLContainer<?> container = new PostgreSQLContainer<>(TestProperties.getPostgresImage())
+                .withDatabaseName(TestProperties.getDatabaseName())
+                .withUsername(TestProperties.getUsername())
+                .withPassword(TestProperties.getPassword());
+        container.start();
+        return new BenchmarkDatabase(container, container.getJdbcUrl(), container.getUsername(), container.getPassword(),
+                overrides);
+    }
+
+    EntityManagerFactory emf() {
+        return emf;
+    }
+
+    UnitOfWork unitOfWork() {
+        return unitOfWork;
+    }
+
+    /**
+     * Очищает таблицу и загружает {@code rows} пользователей через COPY. Возвращает id загруженных строк.
+     */
+    long[] seed(int rows) {
+        unitOfWork.runInTransaction(em -> em.createNativeQuery("truncate table users").executeUpdate());
+        emf.getCache().evictAll();
+
+        CopyLoadResult result = new UserCopyLoader(unitOfWork).load(
+                LongStream.range(0, rows).mapToObj(BenchmarkDatabase::request).iterator(),
+                dto -> true,
+                COPY_CHUNK_SIZE);
+        log.info("Загружено {} пользователей за {} мс", result.loaded(), result.elapsedMillis());
+
+        List<Long> ids = unitOfWork.read(em -> em.createQuery("select u.id from User u", Long.class).getResultList());
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    static UserRequestDto request(long n) {
+        return UserRequestDto.builder()
+                .name("User " + n)
+                .email("user" + n + "@example.com")
+                .age((int) (18 + n % 60))
+                .created_at(LocalDate.of(2024, 1, 1).plusDays(n % 365))
+                .build();
+    }
+
+    @Override
+    public void close() {
+        emf.close();
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package benchmark;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.core.joran.spi.JoranException;
+import dto.UserRequestDto;
+import dto.UserResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import repository.PersistenceSettings;
+import service.UserService;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Стоимость логирования на операцию {@link UserService} в профилях dev и prod.
+ * В dev включены show_sql/format_sql и логгеры SQL и параметров, как в основном persistence.xml.
+ * stdout форка заменяется пустым потоком: измеряется форматирование и работа аппендеров, а не скорость терминала.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LoggingOverheadBenchmark {
+    private static final int ROWS = 10_000;
+
+    @Param({"dev", "prod"})
+    String profile;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private PrintStream console;
+    private BenchmarkDatabase database;
+    private UserService service;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JoranException {
+        System.setProperty(PersistenceSettings.PROFILE_PROPERTY, profile);
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8));
+        reconfigureLogging();
+
+        Map<String, Object> settings = new HashMap<>(Map.of(
+                "hibernate.show_sql", "true",
+                "hibernate.format_sql", "true"
+        ));
+        settings.putAll(PersistenceSettings.forProfile(profile));
+        database = BenchmarkDatabase.start(settings);
+        ids = database.seed(ROWS);
+        service = new UserService(database.emf());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public void createUser() {
+        service.createUser(BenchmarkDatabase.request(ROWS + sequence.incrementAndGet()));
+    }
+
+    @Benchmark
+    public UserResponseDto updateUser() {
+        long n = sequence.incrementAndGet();
+        UserRequestDto seeded = BenchmarkDatabase.request(n);
+        // Email вне диапазона user0..user9999 из seed: уникальный индекс не должен отклонять обновление
+        UserRequestDto dto = new UserRequestDto(seeded.name(), "updated" + n + "@example.com", seeded.age(),
+                seeded.created_at());
+        return service.updateUser(ids[ThreadLocalRandom.current().nextInt(ids.length)], dto);
+    }
+
+    @Benchmark
+    public List<UserResponseDto> readUsersPage() {
+        return service.readUsersPage(ids[ThreadLocalRandom.current().nextInt(ids.length)], 20);
+    }
+
+    private void reconfigureLogging() throws JoranException {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        JoranConfigurator configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        configurator.doConfigure(LoggingOverheadBenchmark.class.getResource("/logback.xml"));
+    }
+}
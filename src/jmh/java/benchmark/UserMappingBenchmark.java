@@ -0,0 +1,95 @@
+package benchmark;
+
+import dto.UserRequestDto;
+import dto.UserResponseDto;
+import entity.User;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import mapper.UserMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.UserRequestValidator;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование DTO и валидация без обращения к базе: Bean Validation против быстрой проверки.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserMappingBenchmark {
+
+    private final UserMapper mapper = new UserMapper();
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private UserRequestValidator requestValidator;
+    private UserRequestDto validDto;
+    private UserRequestDto invalidDto;
+    private User entity;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        requestValidator = new UserRequestValidator(validator);
+        validDto = BenchmarkDatabase.request(42);
+        invalidDto = new UserRequestDto("", "broken-email", 120, LocalDate.now().plusDays(1));
+        entity = mapper.toEntity(validDto);
+        entity.setId(42L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public User toEntity() {
+        return mapper.toEntity(validDto);
+    }
+
+    @Benchmark
+    public UserResponseDto toDto() {
+        return mapper.toDto(entity);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequestDto>> validateValid() {
+        return validator.validate(validDto);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequestDto>> validateInvalid() {
+        return validator.validate(invalidDto);
+    }
+
+    @Benchmark
+    public List<String> precompiledValid() {
+        return requestValidator.violations(validDto);
+    }
+
+    @Benchmark
+    public List<String> precompiledInvalid() {
+        return requestValidator.violations(invalidDto);
+    }
+}
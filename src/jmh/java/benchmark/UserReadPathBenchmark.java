@@ -0,0 +1,78 @@
+package benchmark;
+
+import dto.UserResponseDto;
+import entity.User;
+import mapper.UserMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.UnitOfWork;
+import repository.UserRepository;
+import repository.UserRepositoryImpl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение всей таблицы через управляемые сущности с маппером и через DTO-проекцию {@link UserRepositoryImpl#findAll}.
+ * Операция — одна строка: счет дает строк в секунду, {@code gc.alloc.rate.norm} из {@code -prof gc} — байт на строку.
+ * Оба пути открывают свой {@code EntityManager} на вызов; кэш второго уровня выключен, чтобы путь через сущности
+ * не тратил время на его заполнение и сравнивалась только гидратация.
+ * Запуск: {@code mvn -Pbenchmark -DskipTests verify -Djmh.include=UserReadPathBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserReadPathBenchmark {
+    private static final int ROWS = 20_000;
+
+    private final UserMapper mapper = new UserMapper();
+
+    private BenchmarkDatabase database;
+    private UnitOfWork unitOfWork;
+    private UserRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(Map.of("hibernate.cache.use_second_level_cache", "false",
+                "hibernate.cache.use_query_cache", "false"));
+        database.seed(ROWS);
+        unitOfWork = database.unitOfWork();
+        repository = new UserRepositoryImpl(unitOfWork);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<UserResponseDto> entityAndMapper() {
+        return unitOfWork.read(em -> em.createQuery("from User", User.class)
+                .getResultList()
+                .stream()
+                .map(mapper::toDto)
+                .toList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<UserResponseDto> dtoProjection() {
+        return repository.findAll();
+    }
+}
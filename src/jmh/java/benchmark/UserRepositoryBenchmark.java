@@ -0,0 +1,125 @@
+package benchmark;
+
+import entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.UserRepository;
+import repository.UserRepositoryImpl;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Операции {@link UserRepositoryImpl} на заполненной таблице.
+ * Запуск: {@code mvn -Pbenchmark -DskipTests verify}, результаты пишутся в {@code target/jmh-result.json}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserRepositoryBenchmark {
+
+    @Param({"10000", "1000000"})
+    int rows;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private BenchmarkDatabase database;
+    private UserRepository repository;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start();
+        ids = database.seed(rows);
+        repository = new UserRepositoryImpl(database.unitOfWork());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public User create() {
+        User user = newUser();
+        repository.create(user);
+        return user;
+    }
+
+    @Benchmark
+    public User findById() {
+        return repository.findById(randomId());
+    }
+
+    @Benchmark
+    public Object findDtoById() {
+        return repository.findDtoById(randomId());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<?> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public List<?> findPage() {
+        return repository.findPage(randomId(), 100);
+    }
+
+    @Benchmark
+    public User update() {
+        return repository.update(randomId(), newUser());
+    }
+
+    /**
+     * Удаляемая строка создается перед каждым вызовом, время ее создания в замер не входит.
+     */
+    @Benchmark
+    public void delete(DeleteTarget target) {
+        repository.delete(target.id);
+    }
+
+    @State(Scope.Thread)
+    public static class DeleteTarget {
+        long id;
+
+        @Setup(Level.Invocation)
+        public void create(UserRepositoryBenchmark benchmark) {
+            User user = benchmark.newUser();
+            benchmark.repository.create(user);
+            id = user.getId();
+        }
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private User newUser() {
+        long n = sequence.incrementAndGet();
+        return User.builder()
+                .name("Bench " + n)
+                .email("bench" + n + "@example.com")
+                .age(30)
+                .createdAt(LocalDate.now())
+                .build();
+    }
+}
@@ -1,19 +1,250 @@
+import ch.qos.logback.classic.LoggerContext;
 import controller.UserConsoleController;
-import jakarta.persistence.EntityManager;
+import controller.UserHttpController;
+import dto.ImportResult;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.LoggerFactory;
+import repository.ConnectionPoolMetrics;
+import repository.DatabaseMigrations;
+import repository.PersistenceSettings;
+import repository.ReplicaRoutingUnitOfWork;
+import repository.SecondLevelCacheMetrics;
+import repository.UnitOfWork;
+import repository.UserChangeListener;
+import repository.UserChangeNotifier;
+import repository.UserExporter.Format;
+import repository.UserRepositoryImpl;
+import service.UserService;
+import service.UserServiceExecutor;
+import service.UserServiceMetrics;
+import service.UserWriteBehindQueue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class UserApplication {
+    private static final String POOL_NAME_PROPERTY = "hibernate.hikari.poolName";
+    private static final String MIN_IDLE_PROPERTY = "hibernate.hikari.minimumIdle";
+    private static final String HTTP_MODE = "http";
+    private static final String MIGRATE_MODE = "migrate";
+    private static final String STARTUP_MODE = "startup";
+    private static final String EXPORT_MODE = "export";
+    private static final String IMPORT_MODE = "import";
+    private static final String MIGRATE_ON_START_PROPERTY = "app.migrate-on-start";
+    private static final String STARTUP_BUDGET_PROPERTY = "app.startup.budget-ms";
+    private static final String REPLICAS_PROPERTY = "app.replicas";
+    private static final String REPLICA_SELECTION_PROPERTY = "app.replicas.selection";
+    private static final String READ_YOUR_WRITES_PROPERTY = "app.replicas.read-your-writes-ms";
+    private static final String WRITE_BEHIND_PROPERTY = "app.write-behind";
+    private static final String EXPORT_RESUME_PROPERTY = "app.export.resume";
+
     public static void main(String[] args) {
-        try (EntityManagerFactory factory = Persistence.createEntityManagerFactory("user-unit");
-             EntityManager manager = factory.createEntityManager()) {
-            UserConsoleController controller = new UserConsoleController(manager);
-            controller.start();
+        int exitCode = 0;
+        long started = System.nanoTime();
+        try (EntityManagerFactory factory = Persistence.createEntityManagerFactory("user-unit",
+                PersistenceSettings.forProfile(PersistenceSettings.activeProfile()))) {
+            log.info("EntityManagerFactory создана за {} мс", (System.nanoTime() - started) / 1_000_000);
+            String mode = args.length > 0 ? args[0] : "";
+            if (MIGRATE_MODE.equals(mode)) {
+                DatabaseMigrations.migrate(factory);
+            } else if (STARTUP_MODE.equals(mode)) {
+                exitCode = measureStartup(factory) ? 0 : 1;
+            } else if (EXPORT_MODE.equals(mode)) {
+                export(factory, args);
+            } else if (IMPORT_MODE.equals(mode)) {
+                importCsv(factory, args);
+            } else {
+                if (Boolean.parseBoolean(System.getProperty(MIGRATE_ON_START_PROPERTY, "true"))) {
+                    DatabaseMigrations.migrate(factory);
+                }
+                run(factory, mode);
+            }
         } catch (Exception e) {
             log.error("Ошибка при освобождении ресурсов", e);
+            exitCode = 1;
         }
         log.info("Приложение завершило работу");
+        // AsyncAppender пишет из фонового потока: останавливаем контекст, чтобы дописать очередь
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Время от запуска JVM до ответа на первый запрос к БД через обычный путь сервиса.
+     * С {@code -Dapp.startup.budget-ms} превышение бюджета завершает процесс с ошибкой.
+     */
+    private static boolean measureStartup(EntityManagerFactory factory) {
+        new UserService(factory).readUsersPage(null, 1);
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        log.info("Время до первого запроса: {} мс", uptime);
+
+        long budget = Long.getLong(STARTUP_BUDGET_PROPERTY, 0);
+        if (budget > 0 && uptime > budget) {
+            log.error("Время до первого запроса {} мс превышает бюджет {} мс", uptime, budget);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@code export <файл> [csv|jsonl]}: файл с расширением .gz сжимается, прерванная несжатая выгрузка
+     * продолжается с {@code -Dapp.export.resume=true}.
+     */
+    private static void export(EntityManagerFactory factory, String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Не указан файл выгрузки: export <файл> [csv|jsonl]");
+        }
+        Path file = Path.of(args[1]);
+        Format format = args.length > 2 ? Format.parse(args[2]) : Format.CSV;
+        boolean gzip = file.getFileName().toString().endsWith(".gz");
+        new UserService(factory).exportUsers(file, format, gzip, Boolean.getBoolean(EXPORT_RESUME_PROPERTY));
+    }
+
+    /**
+     * {@code import <файл>}: отклоненные строки выводятся в лог с номерами.
+     */
+    private static void importCsv(EntityManagerFactory factory, String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Не указан файл импорта: import <файл>");
+        }
+        ImportResult result = new UserService(factory).importUsers(Path.of(args[1]));
+        result.errors().forEach(error -> log.warn("Строка {}: {}", error.line(), error.message()));
+        if (result.rejected() > result.errors().size()) {
+            log.warn("Показаны не все ошибки: {} из {}", result.errors().size(), result.rejected());
+        }
+    }
+
+    private static void run(EntityManagerFactory factory, String mode) throws IOException, InterruptedException, SQLException {
+        warmUpPool(factory);
+        List<EntityManagerFactory> replicas = openReplicas();
+        try {
+            UnitOfWork unitOfWork = replicas.isEmpty()
+                    ? new UnitOfWork(factory)
+                    : new ReplicaRoutingUnitOfWork(factory, replicas,
+                    ReplicaRoutingUnitOfWork.Selection.valueOf(System.getProperty(REPLICA_SELECTION_PROPERTY, "round-robin")
+                            .toUpperCase(Locale.ROOT).replace('-', '_')),
+                    Duration.ofMillis(Long.getLong(READ_YOUR_WRITES_PROPERTY, 0)));
+            UserService service = new UserService(unitOfWork);
+            try (UserChangeListener ignored = openChangeListener(factory, service)) {
+                if (HTTP_MODE.equals(mode)) {
+                    runHttp(service, unitOfWork);
+                } else {
+                    UserConsoleController controller = new UserConsoleController(service);
+                    controller.start();
+                }
+            }
+            log.info("Статистика кэша пользователей: {}", service.cacheStats());
+        } finally {
+            replicas.forEach(EntityManagerFactory::close);
+        }
+        log.info("Статистика кэша второго уровня: {}", new SecondLevelCacheMetrics(factory).snapshot());
+        log.info("Метрики UserService:\n{}", UserServiceMetrics.global().toPrometheusText());
+    }
+
+    /**
+     * Очередь отложенной записи закрывается после HTTP API, поэтому принятые запросы успевают сохраниться.
+     */
+    private static void runHttp(UserService service, UnitOfWork unitOfWork) throws IOException, InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        try (UserWriteBehindQueue writeBehind = openWriteBehind(service, unitOfWork);
+             UserHttpController controller = new UserHttpController(service,
+                     UserServiceExecutor.forPool(service, unitOfWork.getEntityManagerFactory()),
+                     Integer.getInteger("app.http.port", 8080))) {
+            Thread main = Thread.currentThread();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                stopped.countDown();
+                try {
+                    main.join(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            controller.start();
+            stopped.await();
+        }
+    }
+
+    /**
+     * Отложенная групповая запись включается {@code -Dapp.write-behind=true}; размеры очереди и пачки, окно
+     * и ожидание места в очереди задаются свойствами {@code app.write-behind.*}.
+     */
+    private static UserWriteBehindQueue openWriteBehind(UserService service, UnitOfWork unitOfWork) {
+        if (!Boolean.getBoolean(WRITE_BEHIND_PROPERTY)) {
+            return null;
+        }
+        UserWriteBehindQueue queue = new UserWriteBehindQueue(new UserRepositoryImpl(unitOfWork),
+                Integer.getInteger(WRITE_BEHIND_PROPERTY + ".capacity", 10_000),
+                Integer.getInteger(WRITE_BEHIND_PROPERTY + ".batch-size", 1_000),
+                Duration.ofMillis(Long.getLong(WRITE_BEHIND_PROPERTY + ".window-ms", 5)),
+                Duration.ofMillis(Long.getLong(WRITE_BEHIND_PROPERTY + ".offer-timeout-ms", 1_000)));
+        service.enableWriteBehind(queue);
+        return queue;
+    }
+
+    /**
+     * Согласование кэшей между узлами включается {@code -Dapp.cache-sync=true}: запись публикует изменения
+     * через NOTIFY, а слушатель на основной базе сбрасывает по ним локальные кэши.
+     */
+    private static UserChangeListener openChangeListener(EntityManagerFactory factory, UserService service) {
+        return UserChangeNotifier.ENABLED ? UserChangeListener.start(factory, service::applyRemoteChanges) : null;
+    }
+
+    /**
+     * Реплики задаются списком JDBC URL через запятую в {@code -Dapp.replicas}; учетные данные — как у основной базы.
+     */
+    private static List<EntityManagerFactory> openReplicas() {
+        String urls = System.getProperty(REPLICAS_PROPERTY, "");
+        List<EntityManagerFactory> replicas = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (!url.isBlank()) {
+                log.info("Подключение реплики для чтения: {}", url.strip());
+                replicas.add(Persistence.createEntityManagerFactory("user-unit",
+                        PersistenceSettings.forReplica(PersistenceSettings.activeProfile(), url.strip(), replicas.size() + 1)));
+            }
+        }
+        return replicas;
+    }
+
+    private static void warmUpPool(EntityManagerFactory factory) throws SQLException {
+        int connections = Integer.parseInt(String.valueOf(factory.getProperties().getOrDefault(MIN_IDLE_PROPERTY, "1")));
+        log.info("Прогрев пула соединений: {} соединений", connections);
+        long started = System.nanoTime();
+
+        ConnectionProvider provider = factory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        List<Connection> opened = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                Connection connection = provider.getConnection();
+                opened.add(connection);
+                connection.isValid(1);
+            }
+        } finally {
+            for (Connection connection : opened) {
+                provider.closeConnection(connection);
+            }
+        }
+
+        log.info("Пул соединений прогрет за {} мс: {}", (System.nanoTime() - started) / 1_000_000,
+                ConnectionPoolMetrics.snapshot(String.valueOf(factory.getProperties().get(POOL_NAME_PROPERTY)))
+                        .map(Object::toString)
+                        .orElse("метрики недоступны"));
     }
 }
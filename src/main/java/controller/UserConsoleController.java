@@ -1,14 +1,18 @@
 package controller;
 
+import dto.ExportResult;
 import dto.UserResponseDto;
-import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.extern.slf4j.Slf4j;
 import mapper.UserMapper;
+import repository.UserExporter.Format;
 import service.UserService;
 import view.ConsoleView;
 import view.Menu;
 
-import java.util.List;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 @Slf4j
 public class UserConsoleController {
@@ -16,10 +20,14 @@ public class UserConsoleController {
     private final ConsoleView view;
     private final UserMapper mapper;
 
-    public UserConsoleController(EntityManager entityManager) {
+    public UserConsoleController(EntityManagerFactory entityManagerFactory) {
+        this(new UserService(entityManagerFactory));
+    }
+
+    public UserConsoleController(UserService service) {
         log.info("Инициализация UserConsoleController...");
         try {
-            this.service = new UserService(entityManager);
+            this.service = service;
             this.view = new ConsoleView();
             mapper = new UserMapper();
             log.info("UserConsoleController успешно инициализирован");
@@ -49,9 +57,15 @@ public class UserConsoleController {
                     }
                     case READ -> {
                         log.info("Запрос списка пользователей");
-                        List<UserResponseDto> users = service.readAllUsers();
-                        users.forEach(user -> view.printMessage(user.toString()));
-                        log.debug("Получено {} пользователей", users.size());
+                        long count = 0;
+                        try (Stream<UserResponseDto> users = service.readAllUsers()) {
+                            Iterator<UserResponseDto> iterator = users.iterator();
+                            while (iterator.hasNext()) {
+                                view.printMessage(iterator.next().toString());
+                                count++;
+                            }
+                        }
+                        log.debug("Получено {} пользователей", count);
                     }
                     case READ_BY_ID -> {
                         log.info("Запрос пользователя по ID");
@@ -77,6 +91,15 @@ public class UserConsoleController {
                         view.printMessage("Пользователь успешно удален");
                         log.info("Пользователь с ID={} успешно удален", id);
                     }
+                    case EXPORT -> {
+                        log.info("Начало выгрузки пользователей");
+                        Path file = view.askExportFile();
+                        Format format = Format.parse(view.askExportFormat());
+                        boolean gzip = file.getFileName().toString().endsWith(".gz");
+                        ExportResult result = service.exportUsers(file, format, gzip, !gzip && view.askExportResume());
+                        view.printMessage("Выгружено пользователей: " + result.exported()
+                                + ", последний ID: " + result.lastId());
+                    }
                     case EXIT -> {
                         log.info("Завершение работы приложения");
                         running = false;
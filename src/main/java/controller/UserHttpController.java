@@ -0,0 +1,395 @@
+package controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dto.ExportResult;
+import dto.UserCriteria;
+import dto.UserPatchDto;
+import dto.UserRequestDto;
+import dto.UserResponseDto;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import repository.UnitOfWork;
+import repository.UserExporter.Format;
+import repository.UserNotFoundException;
+import service.UserService;
+import service.UserServiceExecutor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP API поверх {@link UserService}:
+ * <pre>
+ * POST   /users          создать пользователя (503, если очередь отложенной записи переполнена)
+ * POST   /users/batch    создать пакет пользователей
+ * GET    /users?afterId=&limit=   список (JSON-массив отдается построчно)
+ * GET    /users?email=&namePrefix=&minAge=&maxAge=&createdFrom=&createdBefore=   поиск, тот же формат
+ * GET    /users/search?q=&limit=   нечеткий поиск по имени и email, лучшие совпадения первыми
+ * GET    /users/export?format=csv|jsonl&afterId=&gzip=   выгрузка всех пользователей с id > afterId
+ * GET    /users/{id}     получить пользователя
+ * PUT    /users/{id}     обновить пользователя
+ * PATCH  /users/{id}     изменить отдельные поля (409 при конфликте версий)
+ * PATCH  /users          изменить пакет пользователей: {"id": {поля}, ...}
+ * DELETE /users/{id}     удалить пользователя
+ * DELETE /users          удалить по списку id ([1, 2, ...]) или по условию ({"createdBefore": "2024-01-01", ...})
+ * GET    /metrics        метрики UserService в текстовом формате Prometheus
+ * </pre>
+ * Обработчики выполняются на виртуальных потоках, обращения к БД идут через {@link UserServiceExecutor}.
+ */
+@Slf4j
+public class UserHttpController implements AutoCloseable {
+    private static final String BASE_PATH = "/users";
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String CSV = "text/csv; charset=utf-8";
+    private static final String JSON_LINES = "application/x-ndjson; charset=utf-8";
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final int PAGE_SIZE = 500;
+    private static final int SEARCH_LIMIT = 20;
+    private static final TypeReference<List<UserRequestDto>> BATCH_TYPE = new TypeReference<>() {
+    };
+    private static final TypeReference<Map<Long, UserPatchDto>> PATCH_BATCH_TYPE = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Long>> ID_LIST_TYPE = new TypeReference<>() {
+    };
+
+    private final UserService service;
+    private final UserServiceExecutor serviceExecutor;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService handlerExecutor;
+    private final HttpServer server;
+
+    public UserHttpController(EntityManagerFactory entityManagerFactory, int port) throws IOException {
+        this(new UnitOfWork(entityManagerFactory), port);
+    }
+
+    public UserHttpController(UnitOfWork unitOfWork, int port) throws IOException {
+        this(new UserService(unitOfWork), unitOfWork.getEntityManagerFactory(), port);
+    }
+
+    private UserHttpController(UserService service, EntityManagerFactory entityManagerFactory, int port)
+            throws IOException {
+        this(service, UserServiceExecutor.forPool(service, entityManagerFactory), port);
+    }
+
+    public UserHttpController(UserService service, UserServiceExecutor serviceExecutor, int port) throws IOException {
+        log.info("Инициализация UserHttpController на порту {}", port);
+        this.service = service;
+        this.serviceExecutor = serviceExecutor;
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.handlerExecutor = UserServiceExecutor.newThreadPerTaskExecutor(Runtime.getRuntime().availableProcessors());
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.createContext(BASE_PATH, this::handle);
+        this.server.createContext("/metrics", this::handleMetrics);
+        this.server.setExecutor(handlerExecutor);
+    }
+
+    public void start() {
+        server.start();
+        log.info("HTTP API запущен на порту {}", getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        log.info("Остановка HTTP API");
+        server.stop(1);
+        handlerExecutor.shutdown();
+        serviceExecutor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        log.debug("HTTP {} {}", method, path);
+        try {
+            // Контекст HttpServer сопоставляется по префиксу строки, поэтому сюда попадают и /usersX, и /users-x
+            if (!path.equals(BASE_PATH) && !path.startsWith(BASE_PATH + "/")) {
+                respond(exchange, 404, error("Ресурс не найден"));
+                return;
+            }
+            String tail = path.length() > BASE_PATH.length() ? path.substring(BASE_PATH.length() + 1) : "";
+            switch (method) {
+                case "GET" -> {
+                    if (tail.isEmpty()) {
+                        streamUsers(exchange);
+                    } else if (tail.equals("export")) {
+                        exportUsers(exchange);
+                    } else if (tail.equals("search")) {
+                        Map<String, String> query = parseQuery(exchange.getRequestURI());
+                        int limit = query.containsKey("limit") ? (int) Math.min(parseLimit(query.get("limit")), Integer.MAX_VALUE) : SEARCH_LIMIT;
+                        respond(exchange, 200, serviceExecutor.submit(
+                                () -> service.searchUsers(query.get("q"), limit)).join());
+                    } else {
+                        respond(exchange, 200, serviceExecutor.readUserById(parseId(tail)).join());
+                    }
+                }
+                case "POST" -> {
+                    if (tail.isEmpty()) {
+                        UserRequestDto dto = objectMapper.readValue(exchange.getRequestBody(), UserRequestDto.class);
+                        serviceExecutor.createUser(dto).join();
+                        respond(exchange, 201, null);
+                    } else if (tail.equals("batch")) {
+                        List<UserRequestDto> dtos = objectMapper.readValue(exchange.getRequestBody(), BATCH_TYPE);
+                        respond(exchange, 200, serviceExecutor.submit(() -> service.createUsers(dtos)).join());
+                    } else {
+                        respond(exchange, 404, error("Ресурс не найден"));
+                    }
+                }
+                case "PUT" -> {
+                    Long id = parseId(tail);
+                    String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+                    if (ifMatch == null) {
+                        respond(exchange, 428, error("Нужен заголовок If-Match с версией пользователя"));
+                        return;
+                    }
+                    UserRequestDto dto = objectMapper.readValue(exchange.getRequestBody(), UserRequestDto.class);
+                    respond(exchange, 200, serviceExecutor.updateUser(id, dto, parseVersion(ifMatch)).join());
+                }
+                case "PATCH" -> {
+                    if (tail.isEmpty()) {
+                        Map<Long, UserPatchDto> patches =
+                                objectMapper.readValue(exchange.getRequestBody(), PATCH_BATCH_TYPE);
+                        respond(exchange, 200, serviceExecutor.submit(() -> service.patchUsers(patches)).join());
+                    } else {
+                        Long id = parseId(tail);
+                        UserPatchDto patch = objectMapper.readValue(exchange.getRequestBody(), UserPatchDto.class);
+                        respond(exchange, 200, serviceExecutor.submit(() -> service.patchUser(id, patch)).join());
+                    }
+                }
+                case "DELETE" -> {
+                    if (tail.isEmpty()) {
+                        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+                        long deleted = body != null && body.isArray()
+                                ? serviceExecutor.submit(() -> service.deleteUsers(
+                                        objectMapper.convertValue(body, ID_LIST_TYPE))).join()
+                                : serviceExecutor.submit(() -> service.deleteUsersWhere(
+                                        objectMapper.convertValue(body, UserCriteria.class))).join();
+                        respond(exchange, 200, Map.of("deleted", deleted));
+                    } else {
+                        serviceExecutor.deleteUser(parseId(tail)).join();
+                        respond(exchange, 204, null);
+                    }
+                }
+                default -> respond(exchange, 405, error("Метод не поддерживается: " + method));
+            }
+        } catch (Exception e) {
+            respondError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Выгрузка пишется в ответ по мере чтения курсора. Оборванную выгрузку можно продолжить с afterId,
+     * равным ID последней полученной строки.
+     */
+    private void exportUsers(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI());
+        Format format = Format.parse(query.getOrDefault("format", "csv"));
+        Long afterId = query.containsKey("afterId") ? parseId(query.get("afterId")) : null;
+        boolean gzip = Boolean.parseBoolean(query.get("gzip"));
+
+        exchange.getResponseHeaders().set("Content-Type", format == Format.CSV ? CSV : JSON_LINES);
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream body = gzip
+                ? new GZIPOutputStream(exchange.getResponseBody(), GZIP_BUFFER_SIZE)
+                : exchange.getResponseBody()) {
+            ExportResult result = serviceExecutor.submit(
+                    () -> service.exportUsers(Channels.newChannel(body), format, afterId)).join();
+            log.debug("Выгружено {} пользователей, последний ID={}", result.exported(), result.lastId());
+        } catch (Exception e) {
+            log.error("Выгрузка пользователей прервана: {}", e.getMessage(), e);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body = (service.metrics().toPrometheusText() + service.cacheStats().toPrometheusText())
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PROMETHEUS_TEXT);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    /**
+     * Страницы читаются по ключу (id > afterId) и пишутся в ответ по мере поступления,
+     * поэтому весь список в памяти не собирается.
+     */
+    private void streamUsers(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI());
+        Long afterId = query.containsKey("afterId") ? parseId(query.get("afterId")) : null;
+        long limit = query.containsKey("limit") ? parseLimit(query.get("limit")) : Long.MAX_VALUE;
+        query.remove("afterId");
+        query.remove("limit");
+        UserCriteria criteria = objectMapper.convertValue(query, UserCriteria.class);
+
+        List<UserResponseDto> page = readPage(criteria, afterId, (int) Math.min(limit, PAGE_SIZE));
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(exchange.getResponseBody())) {
+            generator.writeStartArray();
+            while (!page.isEmpty()) {
+                for (UserResponseDto user : page) {
+                    objectMapper.writeValue(generator, user);
+                }
+                written += page.size();
+                generator.flush();
+
+                int pageSize = (int) Math.min(limit - written, PAGE_SIZE);
+                if (pageSize == 0 || page.size() < PAGE_SIZE) {
+                    break;
+                }
+                page = readPage(criteria, page.get(page.size() - 1).id(), pageSize);
+            }
+            generator.writeEndArray();
+        } catch (Exception e) {
+            log.error("Передача списка пользователей прервана после {} записей: {}", written, e.getMessage(), e);
+            return;
+        }
+        log.debug("Отправлено {} пользователей", written);
+    }
+
+    private List<UserResponseDto> readPage(UserCriteria criteria, Long afterId, int limit) {
+        return criteria.isEmpty()
+                ? serviceExecutor.readUsersPage(afterId, limit).join()
+                : serviceExecutor.searchUsers(criteria, afterId, limit).join();
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void respondError(HttpExchange exchange, Exception e) throws IOException {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        Throwable notFound = findCause(cause, UserNotFoundException.class);
+        Throwable conflict = findCause(cause, OptimisticLockException.class);
+        if (notFound != null) {
+            log.warn("Ресурс не найден {}: {}", exchange.getRequestURI(), notFound.getMessage());
+            respond(exchange, 404, error(notFound.getMessage()));
+        } else if (conflict != null) {
+            log.warn("Конфликт версий {}: {}", exchange.getRequestURI(), conflict.getMessage());
+            respond(exchange, 409, error(conflict.getMessage()));
+        } else if (cause instanceof RejectedExecutionException) {
+            log.warn("Запрос отклонен {} {}: {}", exchange.getRequestMethod(), exchange.getRequestURI(), cause.getMessage());
+            respond(exchange, 503, error(cause.getMessage()));
+        } else if (cause instanceof IllegalArgumentException || cause instanceof JsonProcessingException) {
+            log.warn("Ошибка запроса {} {}: {}", exchange.getRequestMethod(), exchange.getRequestURI(), cause.getMessage());
+            respond(exchange, 400, error(cause.getMessage()));
+        } else {
+            log.error("Ошибка обработки запроса {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), cause);
+            respond(exchange, 500, error("Внутренняя ошибка сервера"));
+        }
+    }
+
+    private Throwable findCause(Throwable error, Class<? extends Throwable> type) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    private Map<String, String> error(String message) {
+        return Map.of("error", message == null ? "" : message);
+    }
+
+    private Long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ID должен быть числом: " + value);
+        }
+    }
+
+    /**
+     * If-Match для PUT — поле {@code version} из ответа GET, в кавычках как ETag или без них.
+     */
+    private Long parseVersion(String ifMatch) {
+        String value = ifMatch.strip();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match должен содержать версию пользователя: " + ifMatch);
+        }
+    }
+
+    private long parseLimit(String value) {
+        try {
+            long limit = Long.parseLong(value);
+            if (limit <= 0) {
+                throw new NumberFormatException();
+            }
+            return limit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным числом");
+        }
+    }
+
+    /**
+     * Строка запроса делится по сырому виду: закодированные {@code %26} и {@code %3D} внутри значения
+     * не считаются разделителями. Ключ и значение декодируются отдельно, {@code +} означает пробел.
+     */
+    private Map<String, String> parseQuery(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+}
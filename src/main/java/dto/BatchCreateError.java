@@ -0,0 +1,6 @@
+package dto;
+
+public record BatchCreateError(int index,
+                               UserRequestDto dto,
+                               String message) {
+}
@@ -0,0 +1,7 @@
+package dto;
+
+import java.util.List;
+
+public record BatchCreateResult(int created,
+                                List<BatchCreateError> errors) {
+}
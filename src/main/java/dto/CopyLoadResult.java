@@ -0,0 +1,10 @@
+package dto;
+
+public record CopyLoadResult(long loaded,
+                             long rejected,
+                             long elapsedMillis) {
+
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? loaded : loaded * 1000d / elapsedMillis;
+    }
+}
@@ -0,0 +1,11 @@
+package dto;
+
+public record ExportResult(long exported,
+                           Long lastId,
+                           long bytes,
+                           long elapsedMillis) {
+
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? exported : exported * 1000d / elapsedMillis;
+    }
+}
@@ -0,0 +1,5 @@
+package dto;
+
+public record ImportError(long line,
+                          String message) {
+}
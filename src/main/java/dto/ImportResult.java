@@ -0,0 +1,13 @@
+package dto;
+
+import java.util.List;
+
+public record ImportResult(long imported,
+                           long rejected,
+                           List<ImportError> errors,
+                           long elapsedMillis) {
+
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? imported : imported * 1000d / elapsedMillis;
+    }
+}
@@ -0,0 +1,17 @@
+package dto;
+
+import java.util.Set;
+
+/**
+ * Изменения пользователей, полученные с других узлов за одно окно. {@code resync} — уведомления могли
+ * потеряться (например, при переподключении), и кэши нужно сбросить целиком.
+ */
+public record UserChangeBatch(Set<Long> updated,
+                              Set<Long> deleted,
+                              long created,
+                              boolean resync) {
+
+    public static UserChangeBatch resyncAll() {
+        return new UserChangeBatch(Set.of(), Set.of(), 0, true);
+    }
+}
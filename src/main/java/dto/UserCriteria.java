@@ -0,0 +1,22 @@
+package dto;
+
+import lombok.Builder;
+
+import java.time.LocalDate;
+
+/**
+ * Условия отбора пользователей; {@code null} — условие не задано, заданные условия объединяются через AND.
+ */
+@Builder
+public record UserCriteria(LocalDate createdBefore,
+                           LocalDate createdFrom,
+                           Integer minAge,
+                           Integer maxAge,
+                           String email,
+                           String namePrefix) {
+
+    public boolean isEmpty() {
+        return createdBefore == null && createdFrom == null && minAge == null && maxAge == null
+                && email == null && namePrefix == null;
+    }
+}
@@ -0,0 +1,17 @@
+package dto;
+
+import lombok.Builder;
+
+import java.time.LocalDate;
+
+/**
+ * Частичное обновление: {@code null} означает «поле не менять».
+ * Если задана {@code version}, обновление выполняется только при совпадении с текущей версией записи.
+ */
+@Builder
+public record UserPatchDto(String name,
+                           String email,
+                           Integer age,
+                           LocalDate created_at,
+                           Long version) {
+}
@@ -15,6 +15,7 @@ public record UserRequestDto(
         @NotBlank(message = "Имя не должно быть пустым")
         String name,
 
+        @NotBlank(message = "Email не должен быть пустым")
         @Email(message = "Email должен содержать @")
         String email,
 
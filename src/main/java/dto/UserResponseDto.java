@@ -8,5 +8,6 @@ public record UserResponseDto(Long id,
                               String name,
                               String email,
                               Integer age,
-                              LocalDate createdAt) {
+                              LocalDate createdAt,
+                              Long version) {
 }
\ No newline at end of file
@@ -18,9 +18,11 @@ public class UserMapper {
     public UserResponseDto toDto(User entity) {
         return UserResponseDto.builder()
                 .id(entity.getId())
+                .name(entity.getName())
                 .age(entity.getAge())
                 .email(entity.getEmail())
                 .createdAt(entity.getCreatedAt())
+                .version(entity.getVersion())
                 .build();
     }
 
@@ -0,0 +1,95 @@
+package repository;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики пула HikariCP. Пул создает фабрику сам по имени класса
+ * ({@code hibernate.hikari.metricsTrackerFactory}), поэтому трекеры хранятся статически по имени пула.
+ */
+@Slf4j
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+    private static final Map<String, Tracker> TRACKERS = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        log.debug("Регистрация метрик пула соединений {}", poolName);
+        Tracker tracker = new Tracker(poolStats);
+        TRACKERS.put(poolName, tracker);
+        return tracker;
+    }
+
+    public static Optional<Snapshot> snapshot(String poolName) {
+        return Optional.ofNullable(TRACKERS.get(poolName)).map(Tracker::snapshot);
+    }
+
+    public static Map<String, Snapshot> snapshots() {
+        Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+        TRACKERS.forEach((name, tracker) -> snapshots.put(name, tracker.snapshot()));
+        return snapshots;
+    }
+
+    public record Snapshot(int active,
+                           int idle,
+                           int pending,
+                           int total,
+                           int max,
+                           long acquired,
+                           long timeouts,
+                           double avgAcquireMicros,
+                           double maxAcquireMicros) {
+    }
+
+    private static final class Tracker implements IMetricsTracker {
+        private final PoolStats poolStats;
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder timeouts = new LongAdder();
+
+        private Tracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquired.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        @Override
+        public void close() {
+            TRACKERS.values().remove(this);
+        }
+
+        private Snapshot snapshot() {
+            long count = acquired.sum();
+            double nanosPerMicro = TimeUnit.MICROSECONDS.toNanos(1);
+            return new Snapshot(
+                    poolStats.getActiveConnections(),
+                    poolStats.getIdleConnections(),
+                    poolStats.getPendingThreads(),
+                    poolStats.getTotalConnections(),
+                    poolStats.getMaxConnections(),
+                    count,
+                    timeouts.sum(),
+                    count == 0 ? 0 : acquireNanos.sum() / nanosPerMicro / count,
+                    maxAcquireNanos.get() / nanosPerMicro);
+        }
+    }
+}
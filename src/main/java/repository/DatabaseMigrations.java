@@ -0,0 +1,51 @@
+package repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.sql.DataSource;
+
+/**
+ * Версионные миграции схемы из {@code db/migration}. Схемой владеют миграции, hbm2ddl отключен.
+ * Базы, созданные раньше через hbm2ddl, принимаются как версия 0 и доводятся миграциями.
+ */
+@Slf4j
+public final class DatabaseMigrations {
+    private static final String LOCATION = "classpath:db/migration";
+
+    private DatabaseMigrations() {
+    }
+
+    /**
+     * Миграции выполняются через пул соединений самой фабрики, отдельные настройки подключения не нужны.
+     */
+    public static MigrateResult migrate(EntityManagerFactory emf) {
+        DataSource dataSource = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class)
+                .unwrap(DataSource.class);
+        return migrate(dataSource);
+    }
+
+    public static MigrateResult migrate(DataSource dataSource) {
+        log.info("Применение миграций схемы");
+        try {
+            MigrateResult result = Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations(LOCATION)
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+            log.info("Применено миграций: {}, версия схемы: {}", result.migrationsExecuted, result.targetSchemaVersion);
+            return result;
+        } catch (Exception e) {
+            log.error("Ошибка при применении миграций: {}", e.getMessage(), e);
+            throw new RuntimeException("Не удалось применить миграции схемы", e);
+        }
+    }
+}
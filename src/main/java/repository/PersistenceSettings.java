@@ -0,0 +1,50 @@
+package repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Настройки persistence unit, зависящие от профиля запуска ({@code -Dapp.profile=prod}).
+ * Тот же профиль выбирает конфигурацию логирования в {@code logback.xml}.
+ */
+public final class PersistenceSettings {
+    public static final String PROFILE_PROPERTY = "app.profile";
+    public static final String PROD_PROFILE = "prod";
+
+    private PersistenceSettings() {
+    }
+
+    public static String activeProfile() {
+        return System.getProperty(PROFILE_PROPERTY, "dev");
+    }
+
+    /**
+     * В prod SQL не печатается: {@code show_sql} пишет в stdout синхронно, мимо логгера.
+     */
+    public static Map<String, Object> forProfile(String profile) {
+        if (PROD_PROFILE.equals(profile)) {
+            return Map.of(
+                    "hibernate.show_sql", "false",
+                    "hibernate.format_sql", "false",
+                    "hibernate.highlight_sql", "false"
+            );
+        }
+        return Map.of();
+    }
+
+    /**
+     * Реплика открывается из того же persistence unit со своим пулом только для чтения.
+     * Кэш второго уровня на реплике выключен: JCache-регионы общие для всех фабрик процесса,
+     * и закрытие фабрики реплики закрыло бы их и для основной.
+     */
+    public static Map<String, Object> forReplica(String profile, String url, int index) {
+        Map<String, Object> settings = new HashMap<>(forProfile(profile));
+        settings.put("jakarta.persistence.jdbc.url", url);
+        settings.put("hibernate.connection.url", url);
+        settings.put("hibernate.hikari.poolName", "user-pool-replica-" + index);
+        settings.put("hibernate.hikari.readOnly", "true");
+        settings.put("hibernate.cache.use_second_level_cache", "false");
+        settings.put("hibernate.cache.use_query_cache", "false");
+        return settings;
+    }
+}
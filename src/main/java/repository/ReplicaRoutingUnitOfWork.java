@@ -0,0 +1,96 @@
+package repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Function;
+
+/**
+ * Разделение чтения и записи: транзакции идут на основную базу, чтения — на реплики.
+ * Реплика выбирается по кругу или по наименьшему числу выполняющихся на ней чтений.
+ * Если задано окно read-your-writes, после каждой успешной записи чтения в течение окна идут на основную базу,
+ * чтобы отставание реплики не вернуло только что измененные данные в старом виде.
+ */
+@Slf4j
+public class ReplicaRoutingUnitOfWork extends UnitOfWork {
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_LOADED
+    }
+
+    private final List<EntityManagerFactory> replicas;
+    private final Selection selection;
+    private final long readYourWritesNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicIntegerArray activeReads;
+    private volatile long primaryReadsUntil = System.nanoTime();
+
+    public ReplicaRoutingUnitOfWork(EntityManagerFactory primary, List<EntityManagerFactory> replicas,
+                                    Selection selection, Duration readYourWrites) {
+        super(primary);
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("Нужна хотя бы одна реплика");
+        }
+        log.info("Чтение распределяется по {} репликам ({}), окно read-your-writes: {} мс",
+                replicas.size(), selection, readYourWrites.toMillis());
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.readYourWritesNanos = readYourWrites.toNanos();
+        this.activeReads = new AtomicIntegerArray(replicas.size());
+    }
+
+    @Override
+    public <T> T inTransaction(Function<EntityManager, T> work) {
+        T result = super.inTransaction(work);
+        if (readYourWritesNanos > 0) {
+            primaryReadsUntil = System.nanoTime() + readYourWritesNanos;
+        }
+        return result;
+    }
+
+    @Override
+    public <T> T read(Function<EntityManager, T> work) {
+        return route(work, false);
+    }
+
+    @Override
+    public <T> T readInTransaction(Function<EntityManager, T> work) {
+        return route(work, true);
+    }
+
+    private <T> T route(Function<EntityManager, T> work, boolean transactional) {
+        if (System.nanoTime() - primaryReadsUntil < 0) {
+            log.trace("Чтение с основной базы: окно read-your-writes");
+            return transactional ? super.readInTransaction(work) : readFromPrimary(work);
+        }
+        int index = selectReplica();
+        activeReads.incrementAndGet(index);
+        try {
+            log.trace("Чтение с реплики {}", index);
+            EntityManagerFactory replica = replicas.get(index);
+            return transactional ? readInTransaction(replica, work) : read(replica, work);
+        } finally {
+            activeReads.decrementAndGet(index);
+        }
+    }
+
+    private int selectReplica() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        if (selection == Selection.ROUND_ROBIN) {
+            return start;
+        }
+        int best = start;
+        for (int i = 1; i < replicas.size(); i++) {
+            int candidate = (start + i) % replicas.size();
+            if (activeReads.get(candidate) < activeReads.get(best)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,74 @@
+package repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+@Slf4j
+public class SecondLevelCacheMetrics {
+    public static final String USER_REGION = "entity.User";
+    public static final String QUERY_REGION = "users-by-email";
+
+    private final EntityManagerFactory emf;
+
+    public SecondLevelCacheMetrics(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    public Snapshot snapshot() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        CacheRegionStatistics users = statistics.getDomainDataRegionStatistics(USER_REGION);
+        CacheRegionStatistics queries = statistics.getQueryRegionStatistics(QUERY_REGION);
+        return new Snapshot(
+                users == null ? 0 : users.getHitCount(),
+                users == null ? 0 : users.getMissCount(),
+                users == null ? 0 : users.getPutCount(),
+                evictions(USER_REGION),
+                queries == null ? 0 : queries.getHitCount(),
+                queries == null ? 0 : queries.getMissCount(),
+                queries == null ? 0 : queries.getPutCount(),
+                evictions(QUERY_REGION));
+    }
+
+    private long evictions(String cacheName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            long evictions = 0;
+            ObjectName pattern = new ObjectName("javax.cache:type=CacheStatistics,Cache=" + cacheName + ",*");
+            for (ObjectName name : server.queryNames(pattern, null)) {
+                evictions += (Long) server.getAttribute(name, "CacheEvictions");
+            }
+            return evictions;
+        } catch (JMException e) {
+            log.debug("Статистика вытеснения для кэша {} недоступна: {}", cacheName, e.getMessage());
+            return 0;
+        }
+    }
+
+    public record Snapshot(long entityHits,
+                           long entityMisses,
+                           long entityPuts,
+                           long entityEvictions,
+                           long queryHits,
+                           long queryMisses,
+                           long queryPuts,
+                           long queryEvictions) {
+
+        public double entityHitRatio() {
+            long requests = entityHits + entityMisses;
+            return requests == 0 ? 0 : (double) entityHits / requests;
+        }
+
+        public double queryHitRatio() {
+            long requests = queryHits + queryMisses;
+            return requests == 0 ? 0 : (double) queryHits / requests;
+        }
+    }
+}
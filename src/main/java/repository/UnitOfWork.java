@@ -0,0 +1,96 @@
+package repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.FlushModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Открывает короткоживущий {@link EntityManager} на каждую операцию.
+ * В отличие от {@link EntityManager}, экземпляр потокобезопасен и может разделяться между потоками.
+ */
+@Slf4j
+public class UnitOfWork {
+    private final EntityManagerFactory emf;
+
+    public UnitOfWork(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    public <T> T inTransaction(Function<EntityManager, T> work) {
+        return inTransaction(emf, work);
+    }
+
+    protected <T> T inTransaction(EntityManagerFactory factory, Function<EntityManager, T> work) {
+        try (EntityManager em = factory.createEntityManager()) {
+            EntityTransaction transaction = em.getTransaction();
+            try {
+                transaction.begin();
+                T result = work.apply(em);
+                transaction.commit();
+                return result;
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    log.warn("Откат транзакции: {}", e.getMessage());
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    public void runInTransaction(Consumer<EntityManager> work) {
+        inTransaction(em -> {
+            work.accept(em);
+            return null;
+        });
+    }
+
+    /**
+     * Чтение без транзакции; в {@link ReplicaRoutingUnitOfWork} может уйти на реплику.
+     */
+    public <T> T read(Function<EntityManager, T> work) {
+        return read(emf, work);
+    }
+
+    /**
+     * Чтение в транзакции, например когда нужны настройки {@code SET LOCAL}; как и {@link #read}, может уйти на реплику.
+     */
+    public <T> T readInTransaction(Function<EntityManager, T> work) {
+        return readInTransaction(emf, work);
+    }
+
+    /**
+     * Чтение, которое всегда идет на основную базу: например, выборка строк, которые затем будут изменены.
+     */
+    public <T> T readFromPrimary(Function<EntityManager, T> work) {
+        return read(emf, work);
+    }
+
+    protected <T> T read(EntityManagerFactory factory, Function<EntityManager, T> work) {
+        try (EntityManager em = factory.createEntityManager()) {
+            return readOnly(work).apply(em);
+        }
+    }
+
+    protected <T> T readInTransaction(EntityManagerFactory factory, Function<EntityManager, T> work) {
+        return inTransaction(factory, readOnly(work));
+    }
+
+    private static <T> Function<EntityManager, T> readOnly(Function<EntityManager, T> work) {
+        return em -> {
+            em.setFlushMode(FlushModeType.COMMIT);
+            em.unwrap(Session.class).setDefaultReadOnly(true);
+            return work.apply(em);
+        };
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return emf;
+    }
+}
@@ -0,0 +1,214 @@
+package repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dto.UserChangeBatch;
+import entity.User;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.postgresql.ds.PGSimpleDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Слушатель изменений пользователей с других узлов ({@code LISTEN} на канал {@link UserChangeNotifier#CHANNEL}).
+ * Держит отдельное соединение вне пула: ожидание уведомлений не занимает соединение, нужное запросам.
+ * <p>
+ * Уведомления, пришедшие за окно от первого из них, объединяются в одну {@link UserChangeBatch}: при всплеске
+ * записей кэши сбрасываются пачкой, а не на каждую строку. Сам слушатель вытесняет пользователей из кэша
+ * второго уровня и сбрасывает кэш запросов, остальные кэши узла обновляет переданный обработчик.
+ * <p>
+ * После обрыва соединение восстанавливается с нарастающей паузой. Пока подписки не было, уведомления терялись,
+ * поэтому после каждого {@code LISTEN} обработчик получает пачку с {@code resync} и кэши сбрасываются целиком.
+ */
+@Slf4j
+public class UserChangeListener implements AutoCloseable {
+    public static final String APPLICATION_NAME = "user-change-listener";
+
+    private static final int POLL_MILLIS = 500;
+    private static final long HEARTBEAT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long MIN_RECONNECT_MILLIS = 500;
+    private static final long MAX_RECONNECT_MILLIS = 30_000;
+
+    private final DataSource dataSource;
+    private final EntityManagerFactory emf;
+    private final Consumer<UserChangeBatch> consumer;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final Thread listener;
+    private volatile boolean closed;
+
+    public UserChangeListener(DataSource dataSource, EntityManagerFactory emf, Consumer<UserChangeBatch> consumer,
+                              Duration batchWindow, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Размер пачки изменений должен быть положительным числом");
+        }
+        log.info("Инициализация слушателя изменений пользователей: окно {} мс, пачка до {}",
+                batchWindow.toMillis(), maxBatchSize);
+        this.dataSource = dataSource;
+        this.emf = emf;
+        this.consumer = consumer;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.listener = new Thread(this::run, APPLICATION_NAME);
+        this.listener.setDaemon(true);
+        this.listener.start();
+    }
+
+    /**
+     * Слушатель с теми же параметрами подключения, что у пула фабрики; окно пачки — {@code -Dapp.cache-sync.window-ms}.
+     */
+    public static UserChangeListener start(EntityManagerFactory emf, Consumer<UserChangeBatch> consumer) {
+        HikariDataSource pool = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class)
+                .unwrap(HikariDataSource.class);
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(pool.getJdbcUrl());
+        dataSource.setUser(pool.getUsername());
+        dataSource.setPassword(pool.getPassword());
+        dataSource.setApplicationName(APPLICATION_NAME);
+        dataSource.setTcpKeepAlive(true);
+        return new UserChangeListener(dataSource, emf, consumer,
+                Duration.ofMillis(Long.getLong("app.cache-sync.window-ms", 20)), 10_000);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        listener.interrupt();
+        try {
+            listener.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long reconnectMillis = MIN_RECONNECT_MILLIS;
+        while (!closed) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + UserChangeNotifier.CHANNEL);
+                }
+                log.info("Подписка на изменения пользователей установлена");
+                reconnectMillis = MIN_RECONNECT_MILLIS;
+                deliver(UserChangeBatch.resyncAll());
+                consume(connection);
+            } catch (SQLException e) {
+                if (closed) {
+                    break;
+                }
+                log.warn("Подписка на изменения пользователей потеряна: {}; переподключение через {} мс",
+                        e.getMessage(), reconnectMillis);
+                try {
+                    Thread.sleep(reconnectMillis);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+                reconnectMillis = Math.min(reconnectMillis * 2, MAX_RECONNECT_MILLIS);
+            }
+        }
+        log.info("Слушатель изменений пользователей остановлен");
+    }
+
+    /**
+     * Ожидание нарезано короткими интервалами, чтобы остановка не ждала следующего уведомления; в простое
+     * соединение проверяется запросом, иначе молча оборванная сеть обнаружилась бы только по тайм-ауту TCP.
+     */
+    private void consume(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long lastActivity = System.nanoTime();
+        while (!closed) {
+            PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+            if (notifications == null) {
+                if (System.nanoTime() - lastActivity > HEARTBEAT_NANOS) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("select 1");
+                    }
+                    lastActivity = System.nanoTime();
+                }
+                continue;
+            }
+            Changes changes = new Changes();
+            changes.add(notifications);
+            long deadline = System.nanoTime() + batchWindowNanos;
+            long remaining;
+            while (changes.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                changes.add(pgConnection.getNotifications((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining))));
+            }
+            lastActivity = System.nanoTime();
+            deliver(changes.toBatch());
+        }
+    }
+
+    private void deliver(UserChangeBatch batch) {
+        try {
+            evictSecondLevelCache(batch);
+            consumer.accept(batch);
+            log.debug("Применены изменения пользователей: обновлено={}, удалено={}, создано={}, сброс={}",
+                    batch.updated().size(), batch.deleted().size(), batch.created(), batch.resync());
+        } catch (RuntimeException e) {
+            log.error("Ошибка при применении изменений пользователей: {}", e.getMessage(), e);
+        }
+    }
+
+    private void evictSecondLevelCache(UserChangeBatch batch) {
+        Cache cache = emf.getCache();
+        if (batch.resync()) {
+            cache.evict(User.class);
+        } else {
+            batch.updated().forEach(id -> cache.evict(User.class, id));
+            batch.deleted().forEach(id -> cache.evict(User.class, id));
+        }
+        emf.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    private static final class Changes {
+        private final Set<Long> updated = new HashSet<>();
+        private final Set<Long> deleted = new HashSet<>();
+        private long created;
+
+        private void add(PGNotification[] notifications) {
+            if (notifications == null) {
+                return;
+            }
+            for (PGNotification notification : notifications) {
+                boolean parsed = UserChangeNotifier.parse(notification.getParameter(), (operation, id) -> {
+                    switch (operation) {
+                        case CREATE -> created++;
+                        case UPDATE -> updated.add(id);
+                        case DELETE -> deleted.add(id);
+                    }
+                }, () -> created++);
+                if (!parsed) {
+                    log.warn("Нераспознанное уведомление об изменении пользователей: {}", notification.getParameter());
+                }
+            }
+        }
+
+        private int size() {
+            return updated.size() + deleted.size();
+        }
+
+        private UserChangeBatch toBatch() {
+            return new UserChangeBatch(updated, deleted, created, false);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+/**
+ * Публикация изменений пользователей через PostgreSQL {@code NOTIFY} в канал {@value #CHANNEL}.
+ * {@code pg_notify} вызывается в транзакции изменения: уведомление доставляется слушателям только после коммита
+ * и пропадает при откате. Полезная нагрузка — {@code ОПЕРАЦИЯ:id,id,...}; длинные списки делятся на несколько
+ * уведомлений, потому что PostgreSQL ограничивает нагрузку 8000 байтами. Пустой список id означает
+ * «изменены неизвестные строки» (например, загрузка через COPY).
+ * <p>
+ * Включается {@code -Dapp.cache-sync=true}; без него запись не тратит лишний запрос на уведомление.
+ */
+@Slf4j
+public final class UserChangeNotifier {
+    public static final String CHANNEL = "user_changes";
+    public static final boolean ENABLED = Boolean.getBoolean("app.cache-sync");
+
+    private static final String NOTIFY_SQL = "select pg_notify('" + CHANNEL + "', ?)";
+    private static final int MAX_PAYLOAD_LENGTH = 7_900;
+
+    public enum Operation {
+        CREATE, UPDATE, DELETE
+    }
+
+    private UserChangeNotifier() {
+    }
+
+    public static void publish(EntityManager em, Operation operation, Collection<Long> ids) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(NOTIFY_SQL)) {
+                StringBuilder payload = new StringBuilder(Math.min(MAX_PAYLOAD_LENGTH, 16 + 12 * ids.size()));
+                payload.append(operation).append(':');
+                int header = payload.length();
+                for (Long id : ids) {
+                    if (payload.length() > MAX_PAYLOAD_LENGTH) {
+                        send(statement, payload);
+                        payload.setLength(header);
+                    }
+                    if (payload.length() > header) {
+                        payload.append(',');
+                    }
+                    payload.append(id);
+                }
+                send(statement, payload);
+            }
+        });
+        log.trace("Опубликовано изменение пользователей: {} {}", operation, ids);
+    }
+
+    /**
+     * Разбирает полезную нагрузку уведомления; нераспознанные уведомления пропускаются.
+     */
+    public static boolean parse(String payload, BiConsumer<Operation, Long> change, Runnable unknownRows) {
+        int separator = payload == null ? -1 : payload.indexOf(':');
+        if (separator < 0) {
+            return false;
+        }
+        Operation operation;
+        try {
+            operation = Operation.valueOf(payload.substring(0, separator));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (separator == payload.length() - 1) {
+            unknownRows.run();
+            return true;
+        }
+        long id = 0;
+        for (int i = separator + 1; i <= payload.length(); i++) {
+            char c = i < payload.length() ? payload.charAt(i) : ',';
+            if (c == ',') {
+                change.accept(operation, id);
+                id = 0;
+            } else if (c >= '0' && c <= '9') {
+                id = id * 10 + (c - '0');
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void send(PreparedStatement statement, CharSequence payload) throws SQLException {
+        statement.setString(1, payload.toString());
+        statement.execute();
+    }
+}
@@ -0,0 +1,180 @@
+package repository;
+
+import dto.CopyLoadResult;
+import dto.UserRequestDto;
+import entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+@Slf4j
+public class UserCopyLoader {
+    private static final String COPY_SQL =
+            "COPY users (id, name, email, age, created_at, version) FROM STDIN WITH (FORMAT csv)";
+    private static final String NEXT_ID_BLOCKS_SQL =
+            "select nextval('" + User.ID_SEQUENCE + "') from generate_series(1, ?)";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UnitOfWork unitOfWork;
+    private final boolean notifyChanges;
+
+    public UserCopyLoader(EntityManagerFactory emf) {
+        this(new UnitOfWork(emf));
+    }
+
+    public UserCopyLoader(UnitOfWork unitOfWork) {
+        this(unitOfWork, UserChangeNotifier.ENABLED);
+    }
+
+    public UserCopyLoader(UnitOfWork unitOfWork, boolean notifyChanges) {
+        log.debug("Инициализация UserCopyLoader с UnitOfWork");
+        this.unitOfWork = unitOfWork;
+        this.notifyChanges = notifyChanges;
+    }
+
+    public CopyLoadResult load(Iterator<UserRequestDto> rows, Predicate<UserRequestDto> accept, int chunkSize) {
+        log.info("Загрузка пользователей через COPY, размер пакета: {}", chunkSize);
+        long started = System.nanoTime();
+        long[] counters = new long[2];
+
+        while (rows.hasNext()) {
+            try {
+                unitOfWork.runInTransaction(em -> {
+                    em.unwrap(Session.class).doWork(connection -> copyChunk(connection, rows, accept, chunkSize, counters));
+                    // id строк COPY не перечисляются: другим узлам достаточно знать, что появились новые строки
+                    if (notifyChanges) {
+                        UserChangeNotifier.publish(em, UserChangeNotifier.Operation.CREATE, List.of());
+                    }
+                });
+                log.debug("Пакет загружен, всего строк: {}", counters[0]);
+            } catch (Exception e) {
+                log.error("Ошибка при загрузке пользователей через COPY: {}", e.getMessage(), e);
+                throw new RuntimeException("Не удалось загрузить пользователей", e);
+            }
+        }
+
+        // COPY идет мимо Hibernate, поэтому закэшированные результаты запросов по users устарели
+        unitOfWork.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictQueryRegions();
+
+        CopyLoadResult result = new CopyLoadResult(counters[0], counters[1],
+                (System.nanoTime() - started) / 1_000_000);
+        log.info("Загрузка через COPY завершена: загружено={}, отклонено={}, строк/сек={}",
+                result.loaded(), result.rejected(), String.format("%.0f", result.rowsPerSecond()));
+        return result;
+    }
+
+    private void copyChunk(Connection connection, Iterator<UserRequestDto> rows,
+                           Predicate<UserRequestDto> accept, int chunkSize, long[] counters) throws SQLException {
+        IdBlocks ids = IdBlocks.reserve(connection, chunkSize);
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new PGCopyOutputStream(copyIn, BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE);
+            StringBuilder line = new StringBuilder(128);
+            int written = 0;
+            while (written < chunkSize && rows.hasNext()) {
+                UserRequestDto dto = rows.next();
+                if (!accept.test(dto)) {
+                    counters[1]++;
+                    continue;
+                }
+                line.setLength(0);
+                appendCsv(line, ids.next(), dto);
+                writer.append(line);
+                written++;
+            }
+            writer.close();
+            counters[0] += written;
+        } catch (IOException | RuntimeException e) {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+            throw new SQLException("Ошибка записи в поток COPY", e);
+        }
+    }
+
+    private void appendCsv(StringBuilder line, long id, UserRequestDto dto) {
+        line.append(id).append(',');
+        appendQuoted(line, dto.name());
+        line.append(',');
+        appendQuoted(line, dto.email());
+        line.append(',').append(dto.age())
+                .append(',').append(dto.created_at())
+                .append(",0\n");
+    }
+
+    private void appendQuoted(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    /**
+     * Резервирует идентификаторы до начала COPY так же, как pooled-оптимизатор Hibernate:
+     * значение {@code v} из последовательности закрепляет диапазон {@code (v - allocationSize, v]}.
+     */
+    private static final class IdBlocks {
+        private final long[] highs;
+        private int block;
+        private long next;
+
+        private IdBlocks(long[] highs) {
+            this.highs = highs;
+            this.next = highs[0] - User.ID_ALLOCATION_SIZE + 1;
+        }
+
+        private static IdBlocks reserve(Connection connection, int rows) throws SQLException {
+            int blocks = (rows + User.ID_ALLOCATION_SIZE - 1) / User.ID_ALLOCATION_SIZE;
+            long[] highs = new long[blocks];
+            int count = 0;
+            while (count < blocks) {
+                try (PreparedStatement statement = connection.prepareStatement(NEXT_ID_BLOCKS_SQL)) {
+                    statement.setInt(1, blocks - count);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            long high = resultSet.getLong(1);
+                            if (high >= User.ID_ALLOCATION_SIZE) {
+                                highs[count++] = high;
+                            }
+                        }
+                    }
+                }
+            }
+            return new IdBlocks(highs);
+        }
+
+        private long next() {
+            if (next > highs[block]) {
+                block++;
+                next = highs[block] - User.ID_ALLOCATION_SIZE + 1;
+            }
+            return next++;
+        }
+    }
+}
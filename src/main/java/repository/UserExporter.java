@@ -0,0 +1,371 @@
+package repository;
+
+import dto.ExportResult;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковая выгрузка пользователей в CSV или JSON Lines. Строки читаются серверным курсором
+ * (fetch size внутри транзакции) и кодируются в UTF-8 прямо в direct-буфер фиксированного размера,
+ * поэтому расход памяти не зависит от размера таблицы.
+ */
+@Slf4j
+public class UserExporter {
+    private static final String EXPORT_SQL =
+            "select id, name, email, age, created_at from users where id > ? order by id";
+    private static final String CSV_HEADER = "id,name,email,age,created_at\n";
+    private static final int FETCH_SIZE = 1_000;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int SCAN_BLOCK_SIZE = 8 * 1024;
+
+    public enum Format {
+        CSV, JSONL;
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестный формат выгрузки: " + value);
+        }
+    }
+
+    private final UnitOfWork unitOfWork;
+
+    public UserExporter(EntityManagerFactory emf) {
+        this(new UnitOfWork(emf));
+    }
+
+    public UserExporter(UnitOfWork unitOfWork) {
+        log.debug("Инициализация UserExporter с UnitOfWork");
+        this.unitOfWork = unitOfWork;
+    }
+
+    /**
+     * Пишет пользователей с id > afterId в порядке id; заголовок CSV — только при выгрузке с начала.
+     * Канал не закрывается.
+     */
+    public ExportResult export(WritableByteChannel channel, Format format, Long afterId) {
+        log.info("Выгрузка пользователей в формате {} после ID={}", format, afterId);
+        long started = System.nanoTime();
+        try {
+            RowEncoder encoder = new RowEncoder(channel, format);
+            long exported = unitOfWork.readInTransaction(em -> em.unwrap(Session.class)
+                    .doReturningWork(connection -> exportRows(connection, encoder, afterId)));
+            ExportResult result = new ExportResult(exported, encoder.lastId != null ? encoder.lastId : afterId,
+                    encoder.bytes, (System.nanoTime() - started) / 1_000_000);
+            log.info("Выгрузка завершена: строк={}, последний ID={}, байт={}, строк/сек={}", result.exported(),
+                    result.lastId(), result.bytes(), String.format("%.0f", result.rowsPerSecond()));
+            return result;
+        } catch (Exception e) {
+            log.error("Ошибка при выгрузке пользователей: {}", e.getMessage(), e);
+            throw new RuntimeException("Не удалось выгрузить пользователей", e);
+        }
+    }
+
+    /**
+     * Выгрузка в файл; при заданном afterId файл дописывается (для gzip — новым членом архива,
+     * {@link java.util.zip.GZIPInputStream} читает такие файлы целиком).
+     */
+    public ExportResult export(Path file, Format format, boolean gzip, Long afterId) {
+        log.info("Выгрузка пользователей в файл {}", file);
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                afterId == null ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND)) {
+            GZIPOutputStream gzipStream = gzip
+                    ? new GZIPOutputStream(Channels.newOutputStream(fileChannel), BUFFER_SIZE)
+                    : null;
+            try {
+                ExportResult result = export(gzipStream != null ? Channels.newChannel(gzipStream) : fileChannel,
+                        format, afterId);
+                if (gzipStream != null) {
+                    gzipStream.finish();
+                }
+                fileChannel.force(false);
+                return result;
+            } finally {
+                if (gzipStream != null) {
+                    gzipStream.close();
+                }
+            }
+        } catch (IOException e) {
+            log.error("Ошибка при выгрузке пользователей в файл {}: {}", file, e.getMessage(), e);
+            throw new RuntimeException("Не удалось выгрузить пользователей в файл", e);
+        }
+    }
+
+    /**
+     * ID последней полностью записанной строки несжатой выгрузки; недописанный хвост файла отрезается.
+     * {@code null}, если строк с данными нет и выгрузку нужно начинать сначала.
+     */
+    public static Long resumePoint(Path file, Format format) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long lastNewline = lastNewlineBefore(channel, channel.size());
+            if (lastNewline + 1 < channel.size()) {
+                log.warn("Отрезан недописанный хвост выгрузки {}: {} байт", file, channel.size() - lastNewline - 1);
+                channel.truncate(lastNewline + 1);
+            }
+            if (lastNewline < 0) {
+                return null;
+            }
+            long lineStart = lastNewlineBefore(channel, lastNewline) + 1;
+            ByteBuffer line = ByteBuffer.allocate((int) Math.min(lastNewline - lineStart, 64));
+            channel.read(line, lineStart);
+            line.flip();
+            return parseId(line, format);
+        } catch (IOException e) {
+            log.error("Ошибка при чтении выгрузки {}: {}", file, e.getMessage(), e);
+            throw new RuntimeException("Не удалось определить место продолжения выгрузки", e);
+        }
+    }
+
+    private long exportRows(Connection connection, RowEncoder encoder, Long afterId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setLong(1, afterId == null ? 0 : afterId);
+            long exported = 0;
+            if (afterId == null) {
+                encoder.header();
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    int age = resultSet.getInt(4);
+                    Integer nullableAge = resultSet.wasNull() ? null : age;
+                    encoder.row(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                            nullableAge, resultSet.getString(5));
+                    exported++;
+                }
+            }
+            encoder.flush();
+            return exported;
+        } catch (IOException e) {
+            throw new SQLException("Ошибка записи выгрузки", e);
+        }
+    }
+
+    private static long lastNewlineBefore(FileChannel channel, long end) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+        while (end > 0) {
+            long start = Math.max(0, end - SCAN_BLOCK_SIZE);
+            block.clear().limit((int) (end - start));
+            channel.read(block, start);
+            for (int i = block.position() - 1; i >= 0; i--) {
+                if (block.get(i) == '\n') {
+                    return start + i;
+                }
+            }
+            end = start;
+        }
+        return -1;
+    }
+
+    private static Long parseId(ByteBuffer line, Format format) {
+        if (format == Format.JSONL) {
+            while (line.hasRemaining() && line.get(line.position()) != ':') {
+                line.get();
+            }
+            if (line.hasRemaining()) {
+                line.get();
+            }
+        }
+        long id = 0;
+        int digits = 0;
+        while (line.hasRemaining()) {
+            byte b = line.get();
+            if (b < '0' || b > '9') {
+                break;
+            }
+            id = id * 10 + (b - '0');
+            digits++;
+        }
+        return digits == 0 ? null : id;
+    }
+
+    /**
+     * Кодирует строки выгрузки в UTF-8 без промежуточных String и byte[]; буфер сбрасывается в канал по заполнению.
+     */
+    private static final class RowEncoder {
+        // Самый длинный фрагмент, который пишется без проверки места: число или экранированный символ
+        private static final int MAX_CHUNK = 24;
+
+        private final WritableByteChannel channel;
+        private final Format format;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final byte[] digits = new byte[20];
+        private Long lastId;
+        private long bytes;
+
+        private RowEncoder(WritableByteChannel channel, Format format) {
+            this.channel = channel;
+            this.format = format;
+        }
+
+        private void header() throws IOException {
+            if (format == Format.CSV) {
+                ascii(CSV_HEADER);
+            }
+        }
+
+        private void row(long id, String name, String email, Integer age, String createdAt) throws IOException {
+            if (format == Format.CSV) {
+                number(id);
+                ascii(",");
+                text(name);
+                ascii(",");
+                text(email);
+                ascii(",");
+                if (age != null) {
+                    number(age);
+                }
+                ascii(",");
+                if (createdAt != null) {
+                    ascii(createdAt);
+                }
+                ascii("\n");
+            } else {
+                ascii("{\"id\":");
+                number(id);
+                ascii(",\"name\":");
+                text(name);
+                ascii(",\"email\":");
+                text(email);
+                ascii(",\"age\":");
+                if (age != null) {
+                    number(age);
+                } else {
+                    ascii("null");
+                }
+                ascii(",\"createdAt\":");
+                if (createdAt != null) {
+                    ascii("\"");
+                    ascii(createdAt);
+                    ascii("\"");
+                } else {
+                    ascii("null");
+                }
+                ascii("}\n");
+            }
+            lastId = id;
+        }
+
+        private void ascii(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                ensure(1);
+                buffer.put((byte) value.charAt(i));
+            }
+        }
+
+        private void number(long value) throws IOException {
+            ensure(MAX_CHUNK);
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            int length = 0;
+            do {
+                digits[length++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            while (length > 0) {
+                buffer.put(digits[--length]);
+            }
+        }
+
+        /**
+         * CSV: значение в кавычках, кавычки удваиваются, пустое значение — null.
+         * JSON: строка с экранированием или null.
+         */
+        private void text(String value) throws IOException {
+            if (value == null) {
+                if (format == Format.JSONL) {
+                    ascii("null");
+                }
+                return;
+            }
+            ascii("\"");
+            for (int i = 0; i < value.length(); i++) {
+                ensure(MAX_CHUNK);
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    escapeAscii(c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | c >> 6));
+                    buffer.put((byte) (0x80 | c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put((byte) (0xF0 | codePoint >> 18));
+                    buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                    buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                    buffer.put((byte) (0x80 | codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // Непарный суррогат заменяется так же, как в String.getBytes(UTF_8)
+                    buffer.put((byte) '?');
+                } else {
+                    buffer.put((byte) (0xE0 | c >> 12));
+                    buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                    buffer.put((byte) (0x80 | c & 0x3F));
+                }
+            }
+            ascii("\"");
+        }
+
+        private void escapeAscii(char c) {
+            if (format == Format.CSV) {
+                if (c == '"') {
+                    buffer.put((byte) '"');
+                }
+                buffer.put((byte) c);
+                return;
+            }
+            switch (c) {
+                case '"', '\\' -> buffer.put((byte) '\\').put((byte) c);
+                case '\n' -> buffer.put((byte) '\\').put((byte) 'n');
+                case '\r' -> buffer.put((byte) '\\').put((byte) 'r');
+                case '\t' -> buffer.put((byte) '\\').put((byte) 't');
+                default -> {
+                    if (c < 0x20) {
+                        buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                                .put((byte) Character.forDigit(c >> 4, 16)).put((byte) Character.forDigit(c & 0xF, 16));
+                    } else {
+                        buffer.put((byte) c);
+                    }
+                }
+            }
+        }
+
+        private void ensure(int space) throws IOException {
+            if (buffer.remaining() < space) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            bytes += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package repository;
+
+/**
+ * Пользователь с запрошенным id отсутствует. Наследует {@link IllegalArgumentException},
+ * чтобы вызывающий код, обрабатывающий ошибки ввода, продолжал работать без изменений.
+ */
+public class UserNotFoundException extends IllegalArgumentException {
+    public UserNotFoundException(String message) {
+        super(message);
+    }
+}
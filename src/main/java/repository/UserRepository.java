@@ -1,18 +1,45 @@
 package repository;
 
+import dto.UserCriteria;
+import dto.UserPatchDto;
 import dto.UserResponseDto;
 import entity.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface UserRepository {
     void create(User user);
 
+    void createAll(Collection<User> users);
+
     List<UserResponseDto> findAll();
 
+    List<UserResponseDto> findPage(Long afterId, int limit);
+
+    Stream<UserResponseDto> streamAll(int pageSize);
+
     User update(Long id, User oldUser);
 
+    User patch(Long id, UserPatchDto patch);
+
+    List<User> updateAll(Map<Long, UserPatchDto> patches);
+
     void delete(Long id);
 
+    int deleteAll(Collection<Long> ids);
+
+    long deleteWhere(UserCriteria criteria);
+
     User findById(Long id);
+
+    UserResponseDto findDtoById(Long id);
+
+    UserResponseDto findByEmail(String email);
+
+    List<UserResponseDto> search(UserCriteria criteria, Long afterId, int limit);
+
+    List<UserResponseDto> searchByText(String text, int limit);
 }
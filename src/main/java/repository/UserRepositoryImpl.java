@@ -1,51 +1,111 @@
 package repository;
 
+import dto.UserCriteria;
+import dto.UserPatchDto;
 import dto.UserResponseDto;
 import entity.User;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import repository.UserChangeNotifier.Operation;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 public class UserRepositoryImpl implements UserRepository {
-    private final EntityManager em;
+    private static final int BATCH_SIZE = 50;
+    private static final int DELETE_CHUNK_SIZE = 1_000;
+    private static final String FUZZY_SEARCH_TIMEOUT = "2s";
+    private static final String FUZZY_SEARCH_THRESHOLD = "0.3";
+    private static final String FUZZY_SEARCH_SQL = """
+            select u.* from users u
+            where :text <% u.name or :text <% u.email
+            order by greatest(word_similarity(:text, u.name), word_similarity(:text, u.email)) desc, u.id
+            limit :limit""";
+    private static final String SELECT_DTO =
+            "select new dto.UserResponseDto(u.id, u.name, u.email, u.age, u.createdAt, u.version) from User u ";
 
-    public UserRepositoryImpl(EntityManager em) {
-        log.debug("Инициализация UserRepositoryImpl с EntityManager");
-        this.em = em;
+    private final UnitOfWork unitOfWork;
+    private final boolean notifyChanges;
+    private final Map<Integer, String> searchQueries = new ConcurrentHashMap<>();
+
+    public UserRepositoryImpl(EntityManagerFactory emf) {
+        this(new UnitOfWork(emf));
+    }
+
+    public UserRepositoryImpl(UnitOfWork unitOfWork) {
+        this(unitOfWork, UserChangeNotifier.ENABLED);
+    }
+
+    /**
+     * @param notifyChanges публиковать изменения для других узлов через {@link UserChangeNotifier}
+     */
+    public UserRepositoryImpl(UnitOfWork unitOfWork, boolean notifyChanges) {
+        log.debug("Инициализация UserRepositoryImpl с UnitOfWork, уведомления об изменениях: {}", notifyChanges);
+        this.unitOfWork = unitOfWork;
+        this.notifyChanges = notifyChanges;
     }
 
     @Override
     public void create(User user) {
         log.debug("Создание нового пользователя: {}", user.getEmail());
-        EntityTransaction transaction = em.getTransaction();
         try {
-            transaction.begin();
-            em.persist(user);
-            transaction.commit();
-            log.info("Пользователь успешно создан с ID: {}", user.getId());
+            unitOfWork.runInTransaction(em -> {
+                em.persist(user);
+                publish(em, Operation.CREATE, List.of(user.getId()));
+            });
+            log.debug("Пользователь успешно создан с ID: {}", user.getId());
         } catch (Exception e) {
-            if (transaction != null && transaction.isActive()) {
-                log.warn("Откат транзакции при создании пользователя", e);
-                transaction.rollback();
-            }
             log.error("Ошибка при создании пользователя: {}", e.getMessage(), e);
             throw new RuntimeException("Не удалось создать пользователя", e);
         }
     }
 
+    @Override
+    public void createAll(Collection<User> users) {
+        log.debug("Пакетное создание {} пользователей", users.size());
+        try {
+            unitOfWork.runInTransaction(em -> {
+                int count = 0;
+                for (User user : users) {
+                    em.persist(user);
+                    if (++count % BATCH_SIZE == 0) {
+                        em.flush();
+                        em.clear();
+                    }
+                }
+                publish(em, Operation.CREATE, users.stream().map(User::getId).toList());
+            });
+            log.info("Пакетно создано {} пользователей", users.size());
+        } catch (Exception e) {
+            log.error("Ошибка при пакетном создании пользователей: {}", e.getMessage(), e);
+            throw new RuntimeException("Не удалось создать пользователей", e);
+        }
+    }
+
     @Override
     public List<UserResponseDto> findAll() {
         log.debug("Запрос всех пользователей");
         try {
-            List<User> users = em.createQuery("from User", User.class).getResultList();
+            List<UserResponseDto> users = unitOfWork.read(em -> dtoQuery(em, "order by u.id").getResultList());
             log.debug("Найдено {} пользователей", users.size());
-            return users.stream()
-                    .map(this::convertToDto)
-                    .collect(Collectors.toList());
+            return users;
         } catch (Exception e) {
             log.error("Ошибка при получении списка пользователей: {}", e.getMessage(), e);
             throw new RuntimeException("Не удалось получить список пользователей", e);
@@ -53,64 +113,236 @@ public class UserRepositoryImpl implements UserRepository {
     }
 
     @Override
-    public User update(Long id, User updatedUser) {
-        log.debug("Обновление пользователя с ID: {}", id);
-        EntityTransaction transaction = em.getTransaction();
+    public List<UserResponseDto> findPage(Long afterId, int limit) {
+        log.debug("Запрос страницы пользователей: afterId={}, limit={}", afterId, limit);
         try {
-            transaction.begin();
+            return unitOfWork.read(em -> dtoQuery(em, "where u.id > :afterId order by u.id")
+                    .setParameter("afterId", afterId == null ? 0L : afterId)
+                    .setMaxResults(limit)
+                    .getResultList());
+        } catch (Exception e) {
+            log.error("Ошибка при получении страницы пользователей: {}", e.getMessage(), e);
+            throw new RuntimeException("Не удалось получить страницу пользователей", e);
+        }
+    }
+
+    /**
+     * Ни одна страница, включая первую, не запрашивается до терминальной операции: каждая читается
+     * через {@link #findPage}, когда поток до нее дошел, и ошибки всех страниц обрабатываются одинаково.
+     */
+    @Override
+    public Stream<UserResponseDto> streamAll(int pageSize) {
+        log.debug("Потоковое чтение пользователей страницами по {}", pageSize);
+        Iterator<List<UserResponseDto>> pages = new Iterator<>() {
+            private List<UserResponseDto> next;
+            private Long afterId;
+            private boolean last;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !last) {
+                    next = findPage(afterId, pageSize);
+                    last = next.size() < pageSize;
+                    if (next.isEmpty()) {
+                        next = null;
+                    } else {
+                        afterId = next.get(next.size() - 1).id();
+                    }
+                }
+                return next != null;
+            }
 
-            User existing = em.find(User.class, id);
-            if (existing == null) {
-                log.warn("Пользователь с ID={} не найден", id);
-                throw new IllegalArgumentException("Пользователь с id=" + id + " не найден");
+            @Override
+            public List<UserResponseDto> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<UserResponseDto> page = next;
+                next = null;
+                return page;
             }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL),
+                        false)
+                .flatMap(List::stream);
+    }
 
-            log.debug("Обновление данных пользователя: name={}, email={}",
-                    updatedUser.getName(), updatedUser.getEmail());
+    /**
+     * Полная замена полей. Если у {@code updatedUser} задана версия, запись обновляется только при ее
+     * совпадении с текущей, как в {@link #patch}; иначе бросается {@link OptimisticLockException}.
+     */
+    @Override
+    public User update(Long id, User updatedUser) {
+        log.debug("Обновление пользователя с ID: {}", id);
+        try {
+            User updated = unitOfWork.inTransaction(em -> {
+                User existing = findExisting(em, id);
+                checkVersion(existing, updatedUser.getVersion());
 
-            existing.setName(updatedUser.getName());
-            existing.setAge(updatedUser.getAge());
-            existing.setEmail(updatedUser.getEmail());
-            existing.setCreatedAt(updatedUser.getCreatedAt());
+                log.debug("Обновление данных пользователя: name={}, email={}",
+                        updatedUser.getName(), updatedUser.getEmail());
 
-            em.merge(existing);
-            transaction.commit();
-            log.info("Пользователь с ID={} успешно обновлен", id);
+                existing.setName(updatedUser.getName());
+                existing.setAge(updatedUser.getAge());
+                existing.setEmail(updatedUser.getEmail());
+                existing.setCreatedAt(updatedUser.getCreatedAt());
+                em.flush();
+                publish(em, Operation.UPDATE, List.of(id));
+                return existing;
+            });
+            log.debug("Пользователь с ID={} успешно обновлен", id);
 
-            return existing;
+            return updated;
+        } catch (OptimisticLockException e) {
+            log.warn("Конфликт версий при обновлении пользователя с ID={}: {}", id, e.getMessage());
+            throw e;
         } catch (Exception e) {
-            if (transaction != null && transaction.isActive()) {
-                log.warn("Откат транзакции при обновлении пользователя", e);
-                transaction.rollback();
-            }
             log.error("Ошибка при обновлении пользователя с ID={}: {}", id, e.getMessage(), e);
             throw new RuntimeException("Не удалось обновить пользователя", e);
         }
     }
 
+    /**
+     * Сущность обычно берется из кэша второго уровня, и в БД уходит один UPDATE только измененных
+     * столбцов с проверкой версии ({@code @DynamicUpdate}, {@code @Version}).
+     */
+    @Override
+    public User patch(Long id, UserPatchDto patch) {
+        log.debug("Частичное обновление пользователя с ID: {}", id);
+        try {
+            return unitOfWork.inTransaction(em -> {
+                User existing = findExisting(em, id);
+                applyPatch(existing, patch);
+                em.flush();
+                publish(em, Operation.UPDATE, List.of(id));
+                return existing;
+            });
+        } catch (OptimisticLockException e) {
+            log.warn("Конфликт версий при обновлении пользователя с ID={}: {}", id, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Ошибка при частичном обновлении пользователя с ID={}: {}", id, e.getMessage(), e);
+            throw new RuntimeException("Не удалось обновить пользователя", e);
+        }
+    }
+
+    @Override
+    public List<User> updateAll(Map<Long, UserPatchDto> patches) {
+        log.debug("Пакетное обновление {} пользователей", patches.size());
+        try {
+            List<User> updated = unitOfWork.inTransaction(em -> {
+                List<Long> ids = new ArrayList<>(patches.keySet());
+                List<User> users = em.unwrap(Session.class)
+                        .byMultipleIds(User.class)
+                        .withBatchSize(BATCH_SIZE)
+                        .multiLoad(ids);
+                for (int i = 0; i < ids.size(); i++) {
+                    User user = users.get(i);
+                    if (user == null) {
+                        throw new UserNotFoundException("Пользователь с id=" + ids.get(i) + " не найден");
+                    }
+                    applyPatch(user, patches.get(ids.get(i)));
+                }
+                em.flush();
+                publish(em, Operation.UPDATE, ids);
+                return users;
+            });
+            log.info("Пакетно обновлено {} пользователей", updated.size());
+            return updated;
+        } catch (OptimisticLockException e) {
+            log.warn("Конфликт версий при пакетном обновлении пользователей: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Ошибка при пакетном обновлении пользователей: {}", e.getMessage(), e);
+            throw new RuntimeException("Не удалось обновить пользователей", e);
+        }
+    }
+
     @Override
     public void delete(Long id) {
         log.debug("Удаление пользователя с ID: {}", id);
-        EntityTransaction transaction = em.getTransaction();
         try {
-            transaction.begin();
+            unitOfWork.runInTransaction(em -> {
+                User user = em.find(User.class, id);
+                if (user != null) {
+                    em.remove(user);
+                    publish(em, Operation.DELETE, List.of(id));
+                    log.debug("Пользователь с ID={} удален", id);
+                } else {
+                    log.warn("Попытка удаления несуществующего пользователя с ID={}", id);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Ошибка при удалении пользователя с ID={}: {}", id, e.getMessage(), e);
+            throw new RuntimeException("Не удалось удалить пользователя", e);
+        }
+    }
 
-            User user = em.find(User.class, id);
-            if (user != null) {
-                em.remove(user);
-                log.info("Пользователь с ID={} удален", id);
-            } else {
-                log.warn("Попытка удаления несуществующего пользователя с ID={}", id);
+    /**
+     * Bulk DELETE по пачкам id, каждая пачка — отдельная транзакция. Сущности не загружаются;
+     * Hibernate сам очищает регион User кэша второго уровня после bulk-операции.
+     */
+    @Override
+    public int deleteAll(Collection<Long> ids) {
+        log.debug("Пакетное удаление {} пользователей", ids.size());
+        try {
+            List<Long> all = List.copyOf(ids);
+            int deleted = 0;
+            for (int from = 0; from < all.size(); from += DELETE_CHUNK_SIZE) {
+                List<Long> chunk = all.subList(from, Math.min(from + DELETE_CHUNK_SIZE, all.size()));
+                deleted += unitOfWork.inTransaction(em -> {
+                    int count = em.createQuery("delete from User u where u.id in :ids")
+                            .setParameter("ids", chunk)
+                            .executeUpdate();
+                    publish(em, Operation.DELETE, chunk);
+                    return count;
+                });
             }
-
-            transaction.commit();
+            log.info("Пакетно удалено {} пользователей из {}", deleted, all.size());
+            return deleted;
         } catch (Exception e) {
-            if (transaction != null && transaction.isActive()) {
-                log.warn("Откат транзакции при удалении пользователя", e);
-                transaction.rollback();
+            log.error("Ошибка при пакетном удалении пользователей: {}", e.getMessage(), e);
+            throw new RuntimeException("Не удалось удалить пользователей", e);
+        }
+    }
+
+    /**
+     * Id подходящих строк выбираются с основной базы по ключу пачками и удаляются bulk DELETE с повтором условия,
+     * чтобы не удалить строку, которая перестала ему соответствовать между выборкой и удалением.
+     */
+    @Override
+    public long deleteWhere(UserCriteria criteria) {
+        log.debug("Удаление пользователей по условию: {}", criteria);
+        String condition = criteriaCondition(criteria);
+        try {
+            long deleted = 0;
+            long afterId = 0;
+            while (true) {
+                long after = afterId;
+                List<Long> ids = unitOfWork.readFromPrimary(em -> bindCriteria(em.createQuery(
+                                "select u.id from User u where u.id > :afterId and " + condition + " order by u.id",
+                                Long.class), criteria)
+                        .setParameter("afterId", after)
+                        .setMaxResults(DELETE_CHUNK_SIZE)
+                        .getResultList());
+                if (ids.isEmpty()) {
+                    break;
+                }
+                deleted += unitOfWork.inTransaction(em -> {
+                    int count = bindCriteria(em.createQuery(
+                            "delete from User u where u.id in :ids and " + condition), criteria)
+                            .setParameter("ids", ids)
+                            .executeUpdate();
+                    publish(em, Operation.DELETE, ids);
+                    return count;
+                });
+                afterId = ids.get(ids.size() - 1);
             }
-            log.error("Ошибка при удалении пользователя с ID={}: {}", id, e.getMessage(), e);
-            throw new RuntimeException("Не удалось удалить пользователя", e);
+            log.info("По условию {} удалено {} пользователей", criteria, deleted);
+            return deleted;
+        } catch (Exception e) {
+            log.error("Ошибка при удалении пользователей по условию: {}", e.getMessage(), e);
+            throw new RuntimeException("Не удалось удалить пользователей", e);
         }
     }
 
@@ -118,7 +350,7 @@ public class UserRepositoryImpl implements UserRepository {
     public User findById(Long id) {
         log.debug("Поиск пользователя по ID: {}", id);
         try {
-            User user = em.find(User.class, id);
+            User user = unitOfWork.read(em -> em.find(User.class, id));
             if (user == null) {
                 log.debug("Пользователь с ID={} не найден", id);
             } else {
@@ -131,6 +363,214 @@ public class UserRepositoryImpl implements UserRepository {
         }
     }
 
+    /**
+     * Сознательно не DTO-проекция: загрузка по id идет через кэш второго уровня, а запрос-проекция мимо него
+     * всегда ходил бы в базу. Сущность загружается только для чтения: Hibernate не хранит снимок для проверки
+     * изменений и не регистрирует ее для flush, а контекст закрывается сразу после копирования в DTO.
+     */
+    @Override
+    public UserResponseDto findDtoById(Long id) {
+        log.debug("Поиск пользователя по ID: {}", id);
+        try {
+            return unitOfWork.read(em -> {
+                User user = em.unwrap(Session.class).byId(User.class).withReadOnly(true).load(id);
+                return user == null ? null : convertToDto(user);
+            });
+        } catch (Exception e) {
+            log.error("Ошибка при поиске пользователя с ID={}: {}", id, e.getMessage(), e);
+            throw new RuntimeException("Ошибка при поиске пользователя", e);
+        }
+    }
+
+    /**
+     * Результат кэшируется в регионе {@value SecondLevelCacheMetrics#QUERY_REGION}: email уникален, поэтому
+     * запись региона — не больше одной строки, и ограничение региона числом записей ограничивает и память.
+     * Hibernate сбрасывает регион при любой записи в users через свои метки времени обновления таблиц.
+     */
+    @Override
+    public UserResponseDto findByEmail(String email) {
+        log.debug("Поиск пользователя по email: {}", email);
+        try {
+            List<UserResponseDto> found = unitOfWork.read(em -> em.createQuery(SELECT_DTO + "where u.email = :email",
+                            UserResponseDto.class)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
+                    .setHint(HibernateHints.HINT_CACHE_REGION, SecondLevelCacheMetrics.QUERY_REGION)
+                    .setParameter("email", email)
+                    .getResultList());
+            return found.isEmpty() ? null : found.get(0);
+        } catch (Exception e) {
+            log.error("Ошибка при поиске пользователя по email={}: {}", email, e.getMessage(), e);
+            throw new RuntimeException("Ошибка при поиске пользователя", e);
+        }
+    }
+
+    /**
+     * Страница по ключу (id > afterId) с произвольным набором условий. Текст запроса зависит только от того,
+     * какие условия заданы, поэтому для каждой такой комбинации он строится один раз, а разобранный HQL
+     * и подготовленный на сервере оператор переиспользуются Hibernate и драйвером.
+     */
+    @Override
+    public List<UserResponseDto> search(UserCriteria criteria, Long afterId, int limit) {
+        log.debug("Поиск пользователей: {}, afterId={}, limit={}", criteria, afterId, limit);
+        String hql = searchQueries.computeIfAbsent(shapeOf(criteria), shape -> SELECT_DTO + "where u.id > :afterId"
+                + (criteria.isEmpty() ? "" : " and " + criteriaCondition(criteria)) + " order by u.id");
+        try {
+            return unitOfWork.read(em -> bindCriteria(em.createQuery(hql, UserResponseDto.class), criteria)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .setParameter("afterId", afterId == null ? 0L : afterId)
+                    .setMaxResults(limit)
+                    .getResultList());
+        } catch (Exception e) {
+            log.error("Ошибка при поиске пользователей: {}", e.getMessage(), e);
+            throw new RuntimeException("Не удалось выполнить поиск пользователей", e);
+        }
+    }
+
+    /**
+     * Нечеткий поиск по имени и email через GIN-индексы pg_trgm, лучшие совпадения первыми.
+     * Порог сходства и statement_timeout задаются только на время транзакции (set_config(..., true)),
+     * поэтому зависший запрос отменяет сам сервер, а соединение возвращается в пул с обычными настройками.
+     */
+    @Override
+    public List<UserResponseDto> searchByText(String text, int limit) {
+        log.debug("Нечеткий поиск пользователей: '{}', limit={}", text, limit);
+        try {
+            return unitOfWork.readInTransaction(em -> {
+                em.createNativeQuery("select set_config('statement_timeout', :timeout, true), "
+                                + "set_config('pg_trgm.word_similarity_threshold', :threshold, true)")
+                        .setParameter("timeout", FUZZY_SEARCH_TIMEOUT)
+                        .setParameter("threshold", FUZZY_SEARCH_THRESHOLD)
+                        .getSingleResult();
+                List<?> users = em.createNativeQuery(FUZZY_SEARCH_SQL, User.class)
+                        .setHint(HibernateHints.HINT_READ_ONLY, true)
+                        .setParameter("text", text)
+                        .setParameter("limit", limit)
+                        .getResultList();
+                return users.stream().map(user -> convertToDto((User) user)).toList();
+            });
+        } catch (Exception e) {
+            log.error("Ошибка при нечетком поиске пользователей: {}", e.getMessage(), e);
+            throw new RuntimeException("Не удалось выполнить поиск пользователей", e);
+        }
+    }
+
+    private void publish(EntityManager em, Operation operation, List<Long> ids) {
+        if (notifyChanges && !ids.isEmpty()) {
+            UserChangeNotifier.publish(em, operation, ids);
+        }
+    }
+
+    private User findExisting(EntityManager em, Long id) {
+        User existing = em.find(User.class, id);
+        if (existing == null) {
+            log.warn("Пользователь с ID={} не найден", id);
+            throw new UserNotFoundException("Пользователь с id=" + id + " не найден");
+        }
+        return existing;
+    }
+
+    private void checkVersion(User user, Long expected) {
+        if (expected != null && !expected.equals(user.getVersion())) {
+            throw new OptimisticLockException("Пользователь с id=" + user.getId() + " изменен: ожидалась версия "
+                    + expected + ", текущая " + user.getVersion(), null, user);
+        }
+    }
+
+    private void applyPatch(User user, UserPatchDto patch) {
+        checkVersion(user, patch.version());
+        if (patch.name() != null) {
+            user.setName(patch.name());
+        }
+        if (patch.email() != null) {
+            user.setEmail(patch.email());
+        }
+        if (patch.age() != null) {
+            user.setAge(patch.age());
+        }
+        if (patch.created_at() != null) {
+            user.setCreatedAt(patch.created_at());
+        }
+    }
+
+    private String criteriaCondition(UserCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) {
+            throw new IllegalArgumentException("Условие отбора пользователей не должно быть пустым");
+        }
+        StringJoiner condition = new StringJoiner(" and ", "(", ")");
+        if (criteria.createdBefore() != null) {
+            condition.add("u.createdAt < :createdBefore");
+        }
+        if (criteria.createdFrom() != null) {
+            condition.add("u.createdAt >= :createdFrom");
+        }
+        if (criteria.minAge() != null) {
+            condition.add("u.age >= :minAge");
+        }
+        if (criteria.maxAge() != null) {
+            condition.add("u.age <= :maxAge");
+        }
+        if (criteria.email() != null) {
+            condition.add("u.email = :email");
+        }
+        if (criteria.namePrefix() != null) {
+            condition.add("u.name like :namePrefix escape '!'");
+        }
+        return condition.toString();
+    }
+
+    private int shapeOf(UserCriteria criteria) {
+        int shape = 0;
+        Object[] conditions = {criteria.createdBefore(), criteria.createdFrom(), criteria.minAge(), criteria.maxAge(),
+                criteria.email(), criteria.namePrefix()};
+        for (int i = 0; i < conditions.length; i++) {
+            if (conditions[i] != null) {
+                shape |= 1 << i;
+            }
+        }
+        return shape;
+    }
+
+    private <Q extends Query> Q bindCriteria(Q query, UserCriteria criteria) {
+        if (criteria.createdBefore() != null) {
+            query.setParameter("createdBefore", criteria.createdBefore());
+        }
+        if (criteria.createdFrom() != null) {
+            query.setParameter("createdFrom", criteria.createdFrom());
+        }
+        if (criteria.minAge() != null) {
+            query.setParameter("minAge", criteria.minAge());
+        }
+        if (criteria.maxAge() != null) {
+            query.setParameter("maxAge", criteria.maxAge());
+        }
+        if (criteria.email() != null) {
+            query.setParameter("email", criteria.email());
+        }
+        if (criteria.namePrefix() != null) {
+            query.setParameter("namePrefix", escapeLike(criteria.namePrefix()) + "%");
+        }
+        return query;
+    }
+
+    /**
+     * Без явного ESCAPE Hibernate для PostgreSQL добавляет {@code escape ''} и экранирование отключается,
+     * поэтому используется свой символ. Префикс без подстановочных знаков планировщик превращает
+     * в диапазон по индексу varchar_pattern_ops.
+     */
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    /**
+     * Без кэша запросов: регион ограничен числом записей, а не памятью, и полный список или страницы
+     * при обходе всей таблицы держали бы в нем всю таблицу.
+     */
+    private TypedQuery<UserResponseDto> dtoQuery(EntityManager em, String clause) {
+        return em.createQuery(SELECT_DTO + clause, UserResponseDto.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+
     private UserResponseDto convertToDto(User user) {
         return UserResponseDto.builder()
                 .id(user.getId())
@@ -138,6 +578,7 @@ public class UserRepositoryImpl implements UserRepository {
                 .email(user.getEmail())
                 .age(user.getAge())
                 .createdAt(user.getCreatedAt())
+                .version(user.getVersion())
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package service;
+
+import lombok.Value;
+
+/**
+ * Накопленные с момента запуска перцентили задержки одной фазы операции, в микросекундах.
+ */
+@Value
+public class LatencySnapshot {
+    long count;
+    double meanMicros;
+    double p50Micros;
+    double p99Micros;
+    double p999Micros;
+    double maxMicros;
+}
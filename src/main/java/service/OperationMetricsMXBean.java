@@ -0,0 +1,15 @@
+package service;
+
+public interface OperationMetricsMXBean {
+    long getCalls();
+
+    long getErrors();
+
+    LatencySnapshot getTotal();
+
+    LatencySnapshot getDb();
+
+    LatencySnapshot getValidation();
+
+    LatencySnapshot getMapping();
+}
@@ -0,0 +1,160 @@
+package service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dto.UserResponseDto;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Ограниченный кэш {@link UserResponseDto} по ID перед репозиторием (политика W-TinyLFU).
+ * Одновременные промахи по одному ID приводят к единственной загрузке из БД.
+ * Доля попаданий и время загрузки публикуются в JMX ({@value #JMX_NAME}) и в Prometheus-тексте {@link Stats}.
+ */
+@Slf4j
+public class UserCache implements UserCacheMXBean {
+    public static final String JMX_NAME = "service:type=UserCache";
+
+    public static final long DEFAULT_MAXIMUM_SIZE = Long.getLong("app.user-cache.max-size", 10_000);
+    public static final Duration DEFAULT_TTL =
+            Duration.ofSeconds(Long.getLong("app.user-cache.ttl-seconds", 300));
+
+    private final Cache<Long, UserResponseDto> cache;
+
+    public UserCache() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL);
+    }
+
+    public UserCache(long maximumSize, Duration ttl) {
+        log.debug("Инициализация UserCache: maximumSize={}, ttl={}", maximumSize, ttl);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public UserResponseDto get(Long id, Function<Long, UserResponseDto> loader) {
+        return cache.get(id, loader);
+    }
+
+    /**
+     * Проверка без загрузки и без учета в статистике попаданий.
+     */
+    public boolean contains(Long id) {
+        return cache.asMap().containsKey(id);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Iterable<Long> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Публикует кэш в JMX под {@value #JMX_NAME}, заменяя ранее зарегистрированный: в процессе виден кэш
+     * последнего созданного сервиса приложения.
+     */
+    public void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(JMX_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            log.warn("Не удалось зарегистрировать метрики кэша пользователей в JMX: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public long getHits() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long getMisses() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public double getHitRatio() {
+        return cache.stats().hitRate();
+    }
+
+    @Override
+    public long getLoads() {
+        return cache.stats().loadCount();
+    }
+
+    @Override
+    public double getAverageLoadMillis() {
+        return stats().averageLoadMillis();
+    }
+
+    @Override
+    public long getEvictions() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    public Stats stats() {
+        CacheStats stats = cache.stats();
+        return new Stats(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.loadCount(),
+                stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1),
+                stats.evictionCount(),
+                cache.estimatedSize());
+    }
+
+    public record Stats(long hits,
+                        long misses,
+                        double hitRatio,
+                        long loads,
+                        double averageLoadMillis,
+                        long evictions,
+                        long size) {
+
+        public String toPrometheusText() {
+            return "# HELP user_cache_requests_total Обращения к кэшу пользователей\n"
+                    + "# TYPE user_cache_requests_total counter\n"
+                    + "user_cache_requests_total{result=\"hit\"} " + hits + '\n'
+                    + "user_cache_requests_total{result=\"miss\"} " + misses + '\n'
+                    + "# HELP user_cache_hit_ratio Доля попаданий в кэш пользователей\n"
+                    + "# TYPE user_cache_hit_ratio gauge\n"
+                    + "user_cache_hit_ratio " + hitRatio + '\n'
+                    + "# HELP user_cache_load_duration_seconds Загрузка пользователя из БД при промахе\n"
+                    + "# TYPE user_cache_load_duration_seconds summary\n"
+                    + "user_cache_load_duration_seconds_sum " + averageLoadMillis * loads / 1_000 + '\n'
+                    + "user_cache_load_duration_seconds_count " + loads + '\n'
+                    + "# HELP user_cache_evictions_total Вытеснения из кэша пользователей\n"
+                    + "# TYPE user_cache_evictions_total counter\n"
+                    + "user_cache_evictions_total " + evictions + '\n'
+                    + "# HELP user_cache_size Число пользователей в кэше\n"
+                    + "# TYPE user_cache_size gauge\n"
+                    + "user_cache_size " + size + '\n';
+        }
+    }
+}
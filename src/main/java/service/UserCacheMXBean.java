@@ -0,0 +1,17 @@
+package service;
+
+public interface UserCacheMXBean {
+    long getHits();
+
+    long getMisses();
+
+    double getHitRatio();
+
+    long getLoads();
+
+    double getAverageLoadMillis();
+
+    long getEvictions();
+
+    long getSize();
+}
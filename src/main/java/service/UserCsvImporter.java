@@ -0,0 +1,443 @@
+package service;
+
+import dto.ImportError;
+import dto.ImportResult;
+import dto.UserRequestDto;
+import lombok.extern.slf4j.Slf4j;
+import repository.UserCopyLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Импорт пользователей из CSV-файла произвольного размера. Файл отображается в память кусками,
+ * разрезанными по границам строк; куски разбираются и проверяются параллельно в {@link ForkJoinPool},
+ * а готовые строки по порядку уходят в {@link UserCopyLoader}. Одновременно в работе не больше
+ * заданного числа кусков, поэтому число строк в памяти ограничено независимо от размера файла.
+ * <p>
+ * Столбцы — name, email, age, created_at; если первая строка — заголовок, порядок берется из него,
+ * а лишние столбцы (например, id из выгрузки) пропускаются. Дата — dd.MM.yyyy или yyyy-MM-dd.
+ * Каждая запись занимает одну строку: перевод строки внутри кавычек не поддерживается.
+ */
+@Slf4j
+public class UserCsvImporter {
+    private static final int DEFAULT_CHUNK_BYTES = 8 * 1024 * 1024;
+    private static final int COPY_CHUNK_SIZE = 10_000;
+    private static final int MAX_REPORTED_ERRORS = 1_000;
+    private static final int MAX_FIELDS = 16;
+    private static final int SCAN_BLOCK_SIZE = 4 * 1024;
+    private static final int HEADER_LIMIT = 64 * 1024;
+    private static final Columns DEFAULT_COLUMNS = new Columns(0, 1, 2, 3, 4);
+    private static final String DATE_FORMAT_ERROR = "Дата должна быть в формате dd.MM.yyyy или yyyy-MM-dd";
+
+    private final UserCopyLoader copyLoader;
+    private final Function<UserRequestDto, String> violations;
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+    private final int maxChunksInFlight;
+
+    private record Columns(int name, int email, int age, int createdAt, int count) {
+    }
+
+    private record Header(Columns columns, long dataStart, long lines) {
+    }
+
+    /**
+     * {@code userLines[i]} — номер строки куска, из которой разобран {@code users.get(i)}.
+     */
+    private record ChunkResult(List<UserRequestDto> users, int[] userLines, List<ImportError> errors, long rejected,
+                               long lines) {
+    }
+
+    /**
+     * @param violations нарушения строки одной строкой или {@code null}, если строка корректна
+     */
+    public UserCsvImporter(UserCopyLoader copyLoader, Function<UserRequestDto, String> violations) {
+        this(copyLoader, violations, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES,
+                2 * ForkJoinPool.commonPool().getParallelism());
+    }
+
+    public UserCsvImporter(UserCopyLoader copyLoader, Function<UserRequestDto, String> violations,
+                           ForkJoinPool pool, int chunkBytes, int maxChunksInFlight) {
+        if (chunkBytes <= 0 || maxChunksInFlight <= 0) {
+            throw new IllegalArgumentException("Размер куска и число кусков в работе должны быть положительными");
+        }
+        this.copyLoader = copyLoader;
+        this.violations = violations;
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    public ImportResult importFile(Path file) {
+        log.info("Импорт пользователей из {}: куски по {} байт, в работе не больше {}", file, chunkBytes, maxChunksInFlight);
+        long started = System.nanoTime();
+        Deque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Header header = readHeader(channel, size);
+            long next = header.dataStart();
+            long lineBase = header.lines();
+            long imported = 0;
+            long rejected = 0;
+            List<ImportError> errors = new ArrayList<>();
+
+            while (next < size || !inFlight.isEmpty()) {
+                while (next < size && inFlight.size() < maxChunksInFlight) {
+                    long start = next;
+                    long end = chunkEnd(channel, start, size);
+                    inFlight.add(pool.submit(() -> parseChunk(channel, start, end, header.columns())));
+                    next = end;
+                }
+                ChunkResult chunk = inFlight.poll().join();
+                List<ImportError> chunkErrors = new ArrayList<>(chunk.errors());
+                for (int from = 0; from < chunk.users().size(); from += COPY_CHUNK_SIZE) {
+                    imported += insert(chunk, from, Math.min(from + COPY_CHUNK_SIZE, chunk.users().size()), chunkErrors);
+                }
+                rejected += chunk.rejected() + chunkErrors.size() - chunk.errors().size();
+                chunkErrors.sort(Comparator.comparingLong(ImportError::line));
+                for (ImportError error : chunkErrors) {
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new ImportError(lineBase + error.line(), error.message()));
+                    }
+                }
+                lineBase += chunk.lines();
+                log.debug("Обработано строк: {}, загружено: {}, отклонено: {}", lineBase, imported, rejected);
+            }
+
+            ImportResult result = new ImportResult(imported, rejected, errors, (System.nanoTime() - started) / 1_000_000);
+            log.info("Импорт из {} завершен: загружено={}, отклонено={}, строк/сек={}", file, result.imported(),
+                    result.rejected(), String.format("%.0f", result.rowsPerSecond()));
+            return result;
+        } catch (IOException e) {
+            log.error("Ошибка при чтении файла импорта {}: {}", file, e.getMessage(), e);
+            throw new RuntimeException("Не удалось импортировать пользователей", e);
+        } finally {
+            inFlight.forEach(task -> task.cancel(true));
+        }
+    }
+
+    /**
+     * Строки [from, to) куска загружаются одним COPY, то есть одной транзакцией. Если база отклоняет данные
+     * (например, email уже занят), пачка делится пополам, пока виновные строки не останутся по одной:
+     * они попадают в ошибки со своими номерами, остальные загружаются. Прочие ошибки БД прерывают импорт.
+     */
+    private long insert(ChunkResult chunk, int from, int to, List<ImportError> errors) {
+        try {
+            return copyLoader.load(chunk.users().subList(from, to).iterator(), dto -> true, to - from).loaded();
+        } catch (RuntimeException e) {
+            SQLException rejection = dataRejection(e);
+            if (rejection == null) {
+                throw e;
+            }
+            if (to - from == 1) {
+                errors.add(new ImportError(chunk.userLines()[from], rejectionMessage(rejection)));
+                return 0;
+            }
+            int middle = (from + to) >>> 1;
+            return insert(chunk, from, middle, errors) + insert(chunk, middle, to, errors);
+        }
+    }
+
+    /**
+     * Нарушение ограничений или недопустимые данные (классы SQLSTATE 23 и 22) — вина строки, а не базы.
+     */
+    private static SQLException dataRejection(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("23") || sql.getSQLState().startsWith("22"))) {
+                return sql;
+            }
+        }
+        return null;
+    }
+
+    private static String rejectionMessage(SQLException e) {
+        return switch (e.getSQLState()) {
+            case "23505" -> "Пользователь с таким email уже существует";
+            case "23502" -> "Не заполнено обязательное поле";
+            case "23514" -> "Значение нарушает ограничение таблицы users";
+            default -> "Строка отклонена базой данных: " + e.getMessage();
+        };
+    }
+
+    /**
+     * Заголовок распознается по столбцам name и email; без заголовка порядок столбцов — по умолчанию.
+     */
+    private Header readHeader(FileChannel channel, long size) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(size, HEADER_LIMIT));
+        channel.read(head, 0);
+        head.flip();
+        int offset = head.limit() >= 3 && head.get(0) == (byte) 0xEF && head.get(1) == (byte) 0xBB
+                && head.get(2) == (byte) 0xBF ? 3 : 0;
+        int lineEnd = offset;
+        while (lineEnd < head.limit() && head.get(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        String[] names = StandardCharsets.UTF_8.decode(head.slice(offset, lineEnd - offset)).toString()
+                .strip().toLowerCase(Locale.ROOT).split(",", -1);
+        for (int i = 0; i < names.length; i++) {
+            names[i] = names[i].strip().replace("\"", "");
+        }
+        List<String> columns = Arrays.asList(names);
+        if (!columns.contains("name") || !columns.contains("email")) {
+            return new Header(DEFAULT_COLUMNS, offset, 0);
+        }
+        int createdAt = columns.indexOf("created_at") >= 0 ? columns.indexOf("created_at") : columns.indexOf("createdat");
+        if (columns.indexOf("age") < 0 || createdAt < 0 || names.length > MAX_FIELDS) {
+            throw new IllegalArgumentException("Заголовок CSV должен содержать столбцы name, email, age и created_at: "
+                    + String.join(",", names));
+        }
+        return new Header(new Columns(columns.indexOf("name"), columns.indexOf("email"), columns.indexOf("age"),
+                createdAt, names.length), Math.min(size, lineEnd + 1L), 1);
+    }
+
+    /**
+     * Конец куска — первый перевод строки после номинальной границы.
+     */
+    private long chunkEnd(FileChannel channel, long start, long size) throws IOException {
+        long end = Math.min(size, start + chunkBytes);
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+        while (end < size) {
+            block.clear();
+            int read = channel.read(block, end);
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '\n') {
+                    return end + i + 1;
+                }
+            }
+            end += read;
+        }
+        return size;
+    }
+
+    private ChunkResult parseChunk(FileChannel channel, long start, long end, Columns columns) throws IOException {
+        return new ChunkParser(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), columns).parse();
+    }
+
+    /**
+     * Разбирает кусок прямо в отображенной памяти: границы полей хранятся как смещения, возраст и дата
+     * читаются из байтов, а String создаются только для значений name и email.
+     */
+    private final class ChunkParser {
+        private final ByteBuffer buffer;
+        private final Columns columns;
+        private final int[] fieldStart = new int[MAX_FIELDS];
+        private final int[] fieldEnd = new int[MAX_FIELDS];
+        private final boolean[] fieldQuoted = new boolean[MAX_FIELDS];
+        private final List<UserRequestDto> users = new ArrayList<>();
+        private final List<ImportError> errors = new ArrayList<>();
+        private int[] userLines = new int[1_024];
+        private byte[] scratch = new byte[256];
+        private long rejected;
+
+        private ChunkParser(ByteBuffer buffer, Columns columns) {
+            this.buffer = buffer;
+            this.columns = columns;
+        }
+
+        private ChunkResult parse() {
+            int limit = buffer.limit();
+            int position = 0;
+            long line = 0;
+            while (position < limit) {
+                int lineEnd = indexOf(position, limit, (byte) '\n');
+                int contentEnd = lineEnd > position && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                line++;
+                if (contentEnd > position) {
+                    String error = parseLine(position, contentEnd);
+                    if (error == null) {
+                        if (users.size() > userLines.length) {
+                            userLines = Arrays.copyOf(userLines, 2 * userLines.length);
+                        }
+                        userLines[users.size() - 1] = (int) line;
+                    } else {
+                        rejected++;
+                        if (errors.size() < MAX_REPORTED_ERRORS) {
+                            errors.add(new ImportError(line, error));
+                        }
+                    }
+                }
+                position = lineEnd + 1;
+            }
+            return new ChunkResult(users, userLines, errors, rejected, line);
+        }
+
+        private String parseLine(int from, int to) {
+            int fields = splitFields(from, to);
+            if (fields < 0) {
+                return "Незакрытая кавычка или лишние символы после кавычки";
+            }
+            if (fields != columns.count()) {
+                return "Ожидалось столбцов: " + columns.count() + ", найдено: " + fields;
+            }
+            UserRequestDto dto;
+            try {
+                dto = new UserRequestDto(text(columns.name()), text(columns.email()),
+                        age(columns.age()), date(columns.createdAt()));
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
+            }
+            String violation = violations.apply(dto);
+            if (violation != null) {
+                return violation;
+            }
+            users.add(dto);
+            return null;
+        }
+
+        /**
+         * Число полей строки или -1 при ошибке кавычек; больше {@value #MAX_FIELDS} полей не запоминается.
+         */
+        private int splitFields(int from, int to) {
+            int count = 0;
+            int position = from;
+            while (true) {
+                if (count == MAX_FIELDS) {
+                    return MAX_FIELDS + 1;
+                }
+                if (position < to && buffer.get(position) == '"') {
+                    int end = position + 1;
+                    while (end < to && (buffer.get(end) != '"' || end + 1 < to && buffer.get(end + 1) == '"')) {
+                        end += buffer.get(end) == '"' ? 2 : 1;
+                    }
+                    if (end >= to || end + 1 < to && buffer.get(end + 1) != ',') {
+                        return -1;
+                    }
+                    fieldStart[count] = position + 1;
+                    fieldEnd[count] = end;
+                    fieldQuoted[count++] = true;
+                    position = end + 1;
+                } else {
+                    int end = indexOf(position, to, (byte) ',');
+                    fieldStart[count] = position;
+                    fieldEnd[count] = end;
+                    fieldQuoted[count++] = false;
+                    position = end;
+                }
+                if (position >= to) {
+                    return count;
+                }
+                position++;
+            }
+        }
+
+        /**
+         * Пустое значение без кавычек — null, в кавычках — пустая строка; удвоенные кавычки схлопываются.
+         */
+        private String text(int field) {
+            int start = fieldStart[field];
+            int end = fieldEnd[field];
+            if (!fieldQuoted[field] && start == end) {
+                return null;
+            }
+            if (scratch.length < end - start) {
+                scratch = new byte[Math.max(end - start, 2 * scratch.length)];
+            }
+            int length = 0;
+            if (fieldQuoted[field]) {
+                for (int i = start; i < end; i++) {
+                    byte b = buffer.get(i);
+                    scratch[length++] = b;
+                    if (b == '"') {
+                        i++;
+                    }
+                }
+            } else {
+                buffer.get(start, scratch, 0, end - start);
+                length = end - start;
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private Integer age(int field) {
+            int start = fieldStart[field];
+            int end = fieldEnd[field];
+            if (start == end) {
+                return null;
+            }
+            boolean negative = buffer.get(start) == '-';
+            int value = digits(negative ? start + 1 : start, end);
+            if (value < 0 || end - start > 10) {
+                throw new IllegalArgumentException("Возраст должен быть целым числом");
+            }
+            return negative ? -value : value;
+        }
+
+        private LocalDate date(int field) {
+            int start = fieldStart[field];
+            int end = fieldEnd[field];
+            if (start == end) {
+                return null;
+            }
+            int year;
+            int month;
+            int day;
+            if (end - start != 10) {
+                throw new IllegalArgumentException(DATE_FORMAT_ERROR);
+            } else if (buffer.get(start + 2) == '.' && buffer.get(start + 5) == '.') {
+                day = digits(start, start + 2);
+                month = digits(start + 3, start + 5);
+                year = digits(start + 6, end);
+            } else if (buffer.get(start + 4) == '-' && buffer.get(start + 7) == '-') {
+                year = digits(start, start + 4);
+                month = digits(start + 5, start + 7);
+                day = digits(start + 8, end);
+            } else {
+                throw new IllegalArgumentException(DATE_FORMAT_ERROR);
+            }
+            if (year < 0 || month < 0 || day < 0) {
+                throw new IllegalArgumentException(DATE_FORMAT_ERROR);
+            }
+            try {
+                return LocalDate.of(year, month, day);
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Несуществующая дата: " + day + "." + month + "." + year);
+            }
+        }
+
+        /**
+         * Неотрицательное число из цифр [from, to) или -1, если есть другие символы или число слишком длинное.
+         */
+        private int digits(int from, int to) {
+            if (from == to || to - from > 9) {
+                return -1;
+            }
+            int value = 0;
+            for (int i = from; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') {
+                    return -1;
+                }
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+
+        private int indexOf(int from, int to, byte target) {
+            for (int i = from; i < to; i++) {
+                if (buffer.get(i) == target) {
+                    return i;
+                }
+            }
+            return to;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package service;
+
+import dto.UserRequestDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.groups.Default;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.metadata.ConstraintDescriptor;
+import jakarta.validation.metadata.PropertyDescriptor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.annotation.Annotation;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Быстрая проверка {@link UserRequestDto} без рефлексии и без выделения памяти для корректных DTO.
+ * Источник истины — аннотации Bean Validation: границы возраста читаются из метаданных валидатора,
+ * а если набор ограничений отличается от ожидаемого, быстрая проверка отключается целиком.
+ * Сообщения об ошибках всегда формирует Bean Validation, как и решение по нестандартным email.
+ */
+@Slf4j
+public class UserRequestValidator {
+    private static final Map<String, Set<Class<? extends Annotation>>> EXPECTED_CONSTRAINTS = Map.of(
+            "name", Set.of(NotBlank.class),
+            "email", Set.of(NotBlank.class, Email.class),
+            "age", Set.of(NotNull.class, Min.class, Max.class),
+            "created_at", Set.of(NotNull.class, PastOrPresent.class));
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_DOMAIN_LENGTH = 255;
+    private static final int MAX_DOMAIN_LABEL_LENGTH = 63;
+    private static final String LOCAL_PART_SYMBOLS = "!#$%&'*+/=?^_`{|}~-";
+
+    private enum Result {VALID, INVALID, UNKNOWN}
+
+    private final Validator validator;
+    private final boolean precompiled;
+    private final long minAge;
+    private final long maxAge;
+    private volatile Today today = Today.now();
+
+    public UserRequestValidator(Validator validator) {
+        this.validator = validator;
+        BeanDescriptor bean = validator.getConstraintsForClass(UserRequestDto.class);
+        this.precompiled = bean != null && matchesExpectedConstraints(bean);
+        this.minAge = precompiled ? limit(bean, Min.class) : 0;
+        this.maxAge = precompiled ? limit(bean, Max.class) : 0;
+        if (!precompiled) {
+            log.warn("Ограничения UserRequestDto не совпадают с быстрой проверкой, используется только Bean Validation");
+        }
+    }
+
+    public boolean isPrecompiled() {
+        return precompiled;
+    }
+
+    public boolean isValid(UserRequestDto dto) {
+        Result result = check(dto);
+        return result == Result.UNKNOWN ? validator.validate(dto).isEmpty() : result == Result.VALID;
+    }
+
+    /**
+     * Все нарушения DTO в отсортированном виде; для корректного DTO — пустой список без выделения памяти.
+     */
+    public List<String> violations(UserRequestDto dto) {
+        if (check(dto) == Result.VALID) {
+            return List.of();
+        }
+        return validator.validate(dto).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private Result check(UserRequestDto dto) {
+        if (!precompiled || dto == null) {
+            return Result.UNKNOWN;
+        }
+        if (!isNotBlank(dto.name())) {
+            return Result.INVALID;
+        }
+        Integer age = dto.age();
+        if (age == null || age < minAge || age > maxAge) {
+            return Result.INVALID;
+        }
+        LocalDate createdAt = dto.created_at();
+        if (createdAt == null || createdAt.toEpochDay() > todayEpochDay()) {
+            return Result.INVALID;
+        }
+        return checkEmail(dto.email());
+    }
+
+    /**
+     * Как {@code NotBlankValidator}: строка не пуста после {@link String#trim()}.
+     */
+    private static boolean isNotBlank(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Подтверждаются только адреса обычного вида (ASCII, без кавычек, IP-литералов и IDN) — для них
+     * Hibernate Validator гарантированно согласен; остальное решает Bean Validation.
+     */
+    private static Result checkEmail(String email) {
+        if (!isNotBlank(email)) {
+            return Result.INVALID;
+        }
+        int at = email.lastIndexOf('@');
+        if (at < 0) {
+            return Result.INVALID;
+        }
+        return isSimpleLocalPart(email, at) && isSimpleDomain(email, at + 1) ? Result.VALID : Result.UNKNOWN;
+    }
+
+    private static boolean isSimpleLocalPart(String email, int end) {
+        if (end == 0 || end > MAX_LOCAL_PART_LENGTH || email.charAt(0) == '.' || email.charAt(end - 1) == '.') {
+            return false;
+        }
+        for (int i = 0; i < end; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                if (email.charAt(i - 1) == '.') {
+                    return false;
+                }
+            } else if (!isAsciiLetterOrDigit(c) && LOCAL_PART_SYMBOLS.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSimpleDomain(String email, int start) {
+        int length = email.length() - start;
+        if (length == 0 || length > MAX_DOMAIN_LENGTH) {
+            return false;
+        }
+        int labelStart = start;
+        for (int i = start; i <= email.length(); i++) {
+            if (i == email.length() || email.charAt(i) == '.') {
+                int labelLength = i - labelStart;
+                if (labelLength == 0 || labelLength > MAX_DOMAIN_LABEL_LENGTH
+                        || email.charAt(labelStart) == '-' || email.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labelStart = i + 1;
+            } else if (!isAsciiLetterOrDigit(email.charAt(i)) && email.charAt(i) != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Текущая дата пересчитывается только после полуночи, чтобы проверка {@code @PastOrPresent}
+     * не создавала {@link LocalDate} на каждый вызов.
+     */
+    private long todayEpochDay() {
+        Today current = today;
+        if (System.currentTimeMillis() >= current.nextMidnightMillis()) {
+            current = Today.now();
+            today = current;
+        }
+        return current.epochDay();
+    }
+
+    private static boolean matchesExpectedConstraints(BeanDescriptor bean) {
+        if (!bean.getConstraintDescriptors().isEmpty()) {
+            return false;
+        }
+        Set<String> properties = bean.getConstrainedProperties().stream()
+                .map(PropertyDescriptor::getPropertyName)
+                .collect(Collectors.toSet());
+        if (!properties.equals(EXPECTED_CONSTRAINTS.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, Set<Class<? extends Annotation>>> expected : EXPECTED_CONSTRAINTS.entrySet()) {
+            Set<ConstraintDescriptor<?>> constraints =
+                    bean.getConstraintsForProperty(expected.getKey()).getConstraintDescriptors();
+            Set<Class<? extends Annotation>> types = constraints.stream()
+                    .map(constraint -> constraint.getAnnotation().annotationType())
+                    .collect(Collectors.toSet());
+            if (!types.equals(expected.getValue()) || constraints.size() != types.size()) {
+                return false;
+            }
+            for (ConstraintDescriptor<?> constraint : constraints) {
+                if (!constraint.getGroups().equals(Set.of(Default.class))
+                        || !constraint.getComposingConstraints().isEmpty()) {
+                    return false;
+                }
+                if (constraint.getAnnotation() instanceof Email email
+                        && (!".*".equals(email.regexp()) || email.flags().length > 0)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static long limit(BeanDescriptor bean, Class<? extends Annotation> type) {
+        return bean.getConstraintsForProperty("age").getConstraintDescriptors().stream()
+                .filter(constraint -> constraint.getAnnotation().annotationType() == type)
+                .map(constraint -> ((Number) constraint.getAttributes().get("value")).longValue())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private record Today(long epochDay, long nextMidnightMillis) {
+        static Today now() {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = LocalDate.now(zone);
+            return new Today(date.toEpochDay(), date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        }
+    }
+}
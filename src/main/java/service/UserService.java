@@ -1,32 +1,84 @@
 package service;
 
+import dto.BatchCreateError;
+import dto.BatchCreateResult;
+import dto.CopyLoadResult;
+import dto.ExportResult;
+import dto.ImportResult;
+import dto.UserChangeBatch;
+import dto.UserCriteria;
+import dto.UserPatchDto;
 import dto.UserRequestDto;
 import dto.UserResponseDto;
 import entity.User;
-import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import mapper.UserMapper;
+import repository.UnitOfWork;
+import repository.UserCopyLoader;
+import repository.UserExporter;
+import repository.UserExporter.Format;
+import repository.UserNotFoundException;
 import repository.UserRepository;
 import repository.UserRepositoryImpl;
+import service.UserServiceMetrics.Operation;
+import service.UserServiceMetrics.Phase;
 
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 public class UserService {
+    private static final int PAGE_SIZE = 500;
+    private static final int CHUNK_SIZE = 1_000;
+    private static final int MAX_TEXT_SEARCH_RESULTS = 100;
+
     private final Validator validator;
+    private final UserRequestValidator requestValidator;
     private final UserMapper mapper;
     private final UserRepository repository;
+    private final UserCopyLoader copyLoader;
+    private final UserExporter exporter;
+    private final UserCache cache;
+    private final UserServiceMetrics metrics;
+    private volatile UserWriteBehindQueue writeBehind;
+
+    public UserService(EntityManagerFactory emf) {
+        this(new UnitOfWork(emf));
+    }
 
-    public UserService(EntityManager em) {
+    /**
+     * Сервис поверх готового {@link UnitOfWork}, например {@link repository.ReplicaRoutingUnitOfWork}.
+     */
+    public UserService(UnitOfWork unitOfWork) {
         log.info("Инициализация UserService...");
         try {
-            this.validator = Validation.buildDefaultValidatorFactory().getValidator();
+            // Валидатор поднимается при первой проверке DTO, а не при старте сервиса
+            this.validator = null;
+            this.requestValidator = null;
             this.mapper = new UserMapper();
-            this.repository = new UserRepositoryImpl(em);
+            this.repository = new UserRepositoryImpl(unitOfWork);
+            this.copyLoader = new UserCopyLoader(unitOfWork);
+            this.exporter = new UserExporter(unitOfWork);
+            this.cache = new UserCache();
+            this.cache.registerMBean();
+            this.metrics = UserServiceMetrics.global();
             log.info("UserService успешно инициализирован");
         } catch (Exception e) {
             log.error("Ошибка при инициализации UserService", e);
@@ -35,13 +87,38 @@ public class UserService {
     }
 
     public UserService(UserRepository repository, UserMapper mapper, Validator validator) {
+        this(repository, null, mapper, validator);
+    }
+
+    public UserService(UserRepository repository, UserCopyLoader copyLoader, UserMapper mapper, Validator validator) {
+        this(repository, copyLoader, new UserCache(), mapper, validator);
+    }
+
+    public UserService(UserRepository repository, UserCopyLoader copyLoader, UserCache cache,
+                       UserMapper mapper, Validator validator) {
+        this(repository, copyLoader, cache, new UserServiceMetrics(), mapper, validator);
+    }
+
+    public UserService(UserRepository repository, UserCopyLoader copyLoader, UserCache cache,
+                       UserServiceMetrics metrics, UserMapper mapper, Validator validator) {
+        this(repository, copyLoader, null, cache, metrics, mapper, validator);
+    }
+
+    public UserService(UserRepository repository, UserCopyLoader copyLoader, UserExporter exporter, UserCache cache,
+                       UserServiceMetrics metrics, UserMapper mapper, Validator validator) {
         this.repository = repository;
+        this.copyLoader = copyLoader;
+        this.exporter = exporter;
+        this.cache = cache;
+        this.metrics = metrics;
         this.mapper = mapper;
         this.validator = validator;
+        this.requestValidator = new UserRequestValidator(validator);
     }
 
     public void createUser(UserRequestDto dto) {
-        log.info("Создание нового пользователя");
+        log.debug("Создание нового пользователя");
+        long started = System.nanoTime();
         try {
             validateDto(dto);
             log.debug("Валидация DTO прошла успешно");
@@ -49,88 +126,538 @@ public class UserService {
             User user = toUserEntity(dto);
             log.debug("Создана сущность пользователя: {}", user.getEmail());
 
+            long dbStarted = metrics.record(Operation.CREATE, Phase.VALIDATION, started);
             repository.create(user);
-            log.info("Пользователь успешно создан с ID: {}", user.getId());
+            metrics.record(Operation.CREATE, Phase.DB, dbStarted);
+            log.debug("Пользователь успешно создан с ID: {}", user.getId());
+        } catch (Exception e) {
+            metrics.error(Operation.CREATE);
+            log.error("Ошибка при создании пользователя: {}", e.getMessage(), e);
+            throw e;
+        } finally {
+            metrics.record(Operation.CREATE, Phase.TOTAL, started);
+        }
+    }
+
+    /**
+     * Включает отложенную групповую запись для {@link #createUserAsync}; закрывает очередь ее владелец.
+     */
+    public void enableWriteBehind(UserWriteBehindQueue queue) {
+        log.info("Включена отложенная запись новых пользователей");
+        this.writeBehind = queue;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind != null;
+    }
+
+    /**
+     * Проверяет DTO сразу, а сохраняет через очередь отложенной записи вместе с соседними запросами.
+     * Future завершается ID пользователя только после коммита его строки.
+     */
+    public CompletableFuture<Long> createUserAsync(UserRequestDto dto) {
+        log.debug("Постановка нового пользователя в очередь записи");
+        UserWriteBehindQueue queue = writeBehind;
+        if (queue == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Отложенная запись не включена"));
+        }
+        long started = System.nanoTime();
+        User user;
+        long dbStarted;
+        try {
+            validateDto(dto);
+            user = toUserEntity(dto);
+            dbStarted = metrics.record(Operation.CREATE, Phase.VALIDATION, started);
         } catch (Exception e) {
+            metrics.error(Operation.CREATE);
+            metrics.record(Operation.CREATE, Phase.TOTAL, started);
             log.error("Ошибка при создании пользователя: {}", e.getMessage(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return queue.submit(user)
+                .whenComplete((saved, error) -> {
+                    metrics.record(Operation.CREATE, Phase.DB, dbStarted);
+                    metrics.record(Operation.CREATE, Phase.TOTAL, started);
+                    if (error != null) {
+                        metrics.error(Operation.CREATE);
+                        log.error("Ошибка при отложенном создании пользователя: {}", error.getMessage(), error);
+                    }
+                })
+                .thenApply(User::getId);
+    }
+
+    public BatchCreateResult createUsers(List<UserRequestDto> dtos) {
+        log.info("Пакетное создание {} пользователей", dtos.size());
+        List<BatchCreateError> errors = new ArrayList<>();
+        int created = 0;
+        for (int from = 0; from < dtos.size(); from += CHUNK_SIZE) {
+            created += createChunk(dtos, from, Math.min(from + CHUNK_SIZE, dtos.size()), errors);
+        }
+        log.info("Пакетное создание завершено: создано={}, ошибок={}", created, errors.size());
+        return new BatchCreateResult(created, errors);
+    }
+
+    public CopyLoadResult loadUsers(Stream<UserRequestDto> dtos, int chunkSize) {
+        log.info("Потоковая загрузка пользователей через COPY");
+        if (copyLoader == null) {
+            throw new IllegalStateException("Загрузчик COPY не настроен");
+        }
+        validateLimit(chunkSize);
+        try (dtos) {
+            return copyLoader.load(dtos.iterator(), this::isAcceptedForLoad, chunkSize);
+        } catch (Exception e) {
+            log.error("Ошибка при загрузке пользователей через COPY: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Импорт CSV-файла: строки разбираются и проверяются параллельно, корректные загружаются через COPY,
+     * отклоненные возвращаются с номерами строк файла.
+     */
+    public ImportResult importUsers(Path file) {
+        log.info("Импорт пользователей из файла {}", file);
+        if (copyLoader == null) {
+            throw new IllegalStateException("Загрузчик COPY не настроен");
+        }
+        try {
+            return new UserCsvImporter(copyLoader, this::collectViolations).importFile(file);
+        } catch (Exception e) {
+            log.error("Ошибка при импорте пользователей из файла {}: {}", file, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Выгрузка в файл. С {@code resume} несжатая выгрузка продолжается после последней полностью записанной строки;
+     * сжатую так продолжить нельзя — для нее место продолжения передается явно через {@link UserExporter}.
+     */
+    public ExportResult exportUsers(Path file, Format format, boolean gzip, boolean resume) {
+        log.info("Выгрузка пользователей в файл {}: формат={}, gzip={}, продолжение={}", file, format, gzip, resume);
+        if (gzip && resume) {
+            throw new IllegalArgumentException("Продолжить можно только несжатую выгрузку");
+        }
+        if (exporter == null) {
+            throw new IllegalStateException("Выгрузка не настроена");
+        }
+        try {
+            Long afterId = resume ? UserExporter.resumePoint(file, format) : null;
+            if (afterId != null) {
+                log.info("Выгрузка продолжается после ID={}", afterId);
+            }
+            return exporter.export(file, format, gzip, afterId);
+        } catch (Exception e) {
+            log.error("Ошибка при выгрузке пользователей в файл {}: {}", file, e.getMessage(), e);
             throw e;
         }
     }
 
-    public List<UserResponseDto> readAllUsers() {
+    public ExportResult exportUsers(WritableByteChannel channel, Format format, Long afterId) {
+        log.info("Выгрузка пользователей: формат={}, afterId={}", format, afterId);
+        if (afterId != null) {
+            validateId(afterId);
+        }
+        if (exporter == null) {
+            throw new IllegalStateException("Выгрузка не настроена");
+        }
+        return exporter.export(channel, format, afterId);
+    }
+
+    /**
+     * Страницы читаются по мере потребления потока. DB-фаза — суммарное время чтения страниц, TOTAL — до конца
+     * потока, ошибки или закрытия, смотря что наступит раньше; ошибка на любой странице учитывается в метриках.
+     */
+    public Stream<UserResponseDto> readAllUsers() {
         log.debug("Запрос всех пользователей");
+        ReadAllIterator users = new ReadAllIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(users, Spliterator.ORDERED | Spliterator.NONNULL),
+                        false)
+                .onClose(users::close);
+    }
+
+    public List<UserResponseDto> readUsersPage(Long afterId, int limit) {
+        log.debug("Запрос страницы пользователей: afterId={}, limit={}", afterId, limit);
         try {
-            List<UserResponseDto> users = repository.findAll();
-            log.info("Найдено {} пользователей", users.size());
+            validateLimit(limit);
+            List<UserResponseDto> users = repository.findPage(afterId, limit);
+            log.debug("Получено {} пользователей", users.size());
             return users;
         } catch (Exception e) {
-            log.error("Ошибка при получении списка пользователей: {}", e.getMessage(), e);
-            throw new RuntimeException("Не удалось получить список пользователей", e);
+            log.error("Ошибка при получении страницы пользователей: {}", e.getMessage(), e);
+            throw e;
         }
     }
 
     public UserResponseDto readUserById(Long id) {
         log.debug("Поиск пользователя по ID: {}", id);
+        long started = System.nanoTime();
         try {
             validateId(id);
-            User found = repository.findById(id);
+            UserResponseDto found = cache.get(id, this::loadUser);
 
             if (found == null) {
                 log.warn("Пользователь с ID={} не найден", id);
-                throw new IllegalArgumentException("Пользователь не найден");
+                throw new UserNotFoundException("Пользователь не найден");
             }
 
-            log.debug("Пользователь найден: ID={}, email={}", found.getId(), found.getEmail());
-            return mapper.toDto(found);
+            log.debug("Пользователь найден: ID={}, email={}", found.id(), found.email());
+            return found;
         } catch (Exception e) {
+            metrics.error(Operation.READ_BY_ID);
             log.error("Ошибка при поиске пользователя с ID={}: {}", id, e.getMessage(), e);
             throw e;
+        } finally {
+            metrics.record(Operation.READ_BY_ID, Phase.TOTAL, started);
+        }
+    }
+
+    /**
+     * Будет ли {@link #readUserById} обслужен из кэша, без обращения к БД.
+     */
+    public boolean isCached(Long id) {
+        return id != null && cache.contains(id);
+    }
+
+    public UserResponseDto readUserByEmail(String email) {
+        log.debug("Поиск пользователя по email: {}", email);
+        long started = System.nanoTime();
+        try {
+            if (email == null || email.isBlank()) {
+                throw new IllegalArgumentException("Email не должен быть пустым");
+            }
+            long dbStarted = metrics.record(Operation.SEARCH, Phase.VALIDATION, started);
+            UserResponseDto found = repository.findByEmail(email);
+            metrics.record(Operation.SEARCH, Phase.DB, dbStarted);
+            if (found == null) {
+                log.warn("Пользователь с email={} не найден", email);
+                throw new UserNotFoundException("Пользователь не найден");
+            }
+            return found;
+        } catch (Exception e) {
+            metrics.error(Operation.SEARCH);
+            log.error("Ошибка при поиске пользователя по email={}: {}", email, e.getMessage(), e);
+            throw e;
+        } finally {
+            metrics.record(Operation.SEARCH, Phase.TOTAL, started);
+        }
+    }
+
+    /**
+     * Страница пользователей, подходящих под все заданные условия, по ключу (id > afterId);
+     * пустые условия дают обычную страницу всех пользователей.
+     */
+    public List<UserResponseDto> searchUsers(UserCriteria criteria, Long afterId, int limit) {
+        log.debug("Поиск пользователей: {}, afterId={}, limit={}", criteria, afterId, limit);
+        long started = System.nanoTime();
+        try {
+            validateLimit(limit);
+            validateCriteria(criteria);
+            long dbStarted = metrics.record(Operation.SEARCH, Phase.VALIDATION, started);
+            List<UserResponseDto> users = repository.search(criteria, afterId, limit);
+            metrics.record(Operation.SEARCH, Phase.DB, dbStarted);
+            log.debug("Найдено {} пользователей", users.size());
+            return users;
+        } catch (Exception e) {
+            metrics.error(Operation.SEARCH);
+            log.error("Ошибка при поиске пользователей: {}", e.getMessage(), e);
+            throw e;
+        } finally {
+            metrics.record(Operation.SEARCH, Phase.TOTAL, started);
+        }
+    }
+
+    /**
+     * Нечеткий поиск по части или опечатке в имени/email; результатов не больше {@value #MAX_TEXT_SEARCH_RESULTS}.
+     */
+    public List<UserResponseDto> searchUsers(String text, int limit) {
+        log.debug("Нечеткий поиск пользователей: '{}', limit={}", text, limit);
+        long started = System.nanoTime();
+        try {
+            if (text == null || text.isBlank()) {
+                throw new IllegalArgumentException("Строка поиска не должна быть пустой");
+            }
+            validateLimit(limit);
+            long dbStarted = metrics.record(Operation.SEARCH, Phase.VALIDATION, started);
+            List<UserResponseDto> users = repository.searchByText(text.strip(), Math.min(limit, MAX_TEXT_SEARCH_RESULTS));
+            metrics.record(Operation.SEARCH, Phase.DB, dbStarted);
+            log.debug("Найдено {} пользователей", users.size());
+            return users;
+        } catch (Exception e) {
+            metrics.error(Operation.SEARCH);
+            log.error("Ошибка при нечетком поиске пользователей: {}", e.getMessage(), e);
+            throw e;
+        } finally {
+            metrics.record(Operation.SEARCH, Phase.TOTAL, started);
         }
     }
 
+    /**
+     * Замена без проверки версии: последняя запись побеждает. Для одновременных клиентов —
+     * {@link #updateUser(Long, UserRequestDto, Long)}.
+     */
     public UserResponseDto updateUser(Long id, UserRequestDto dto) {
-        log.info("Обновление пользователя с ID: {}", id);
+        return updateUser(id, dto, null);
+    }
+
+    /**
+     * Заменяет все поля, если текущая версия пользователя равна {@code expectedVersion}, иначе бросает
+     * {@link OptimisticLockException}: два клиента, прочитавшие одну версию, не затрут изменения друг друга.
+     */
+    public UserResponseDto updateUser(Long id, UserRequestDto dto, Long expectedVersion) {
+        log.debug("Обновление пользователя с ID: {}", id);
+        long started = System.nanoTime();
         try {
             validateId(id);
             validateDto(dto);
             log.debug("Валидация данных прошла успешно");
 
             User user = toUserEntity(dto);
+            user.setVersion(expectedVersion);
             log.debug("Данные для обновления: email={}, name={}", user.getEmail(), user.getName());
 
+            long dbStarted = metrics.record(Operation.UPDATE, Phase.VALIDATION, started);
             User updatedUser = repository.update(id, user);
-            log.info("Пользователь с ID={} успешно обновлен", id);
+            cache.invalidate(id);
+            long mappingStarted = metrics.record(Operation.UPDATE, Phase.DB, dbStarted);
+            log.debug("Пользователь с ID={} успешно обновлен", id);
 
-            return mapper.toDto(updatedUser);
+            UserResponseDto result = mapper.toDto(updatedUser);
+            metrics.record(Operation.UPDATE, Phase.MAPPING, mappingStarted);
+            return result;
+        } catch (OptimisticLockException e) {
+            onConflict(id, e);
+            throw e;
         } catch (Exception e) {
+            metrics.error(Operation.UPDATE);
             log.error("Ошибка при обновлении пользователя с ID={}: {}", id, e.getMessage(), e);
             throw e;
+        } finally {
+            metrics.record(Operation.UPDATE, Phase.TOTAL, started);
+        }
+    }
+
+    /**
+     * Меняет только заданные поля. При несовпадении версии бросает {@link OptimisticLockException}:
+     * вызывающий код может перечитать пользователя и повторить попытку.
+     */
+    public UserResponseDto patchUser(Long id, UserPatchDto patch) {
+        log.debug("Частичное обновление пользователя с ID: {}", id);
+        long started = System.nanoTime();
+        try {
+            validateId(id);
+            validatePatch(patch);
+
+            long dbStarted = metrics.record(Operation.UPDATE, Phase.VALIDATION, started);
+            User updatedUser = repository.patch(id, patch);
+            cache.invalidate(id);
+            long mappingStarted = metrics.record(Operation.UPDATE, Phase.DB, dbStarted);
+            log.debug("Пользователь с ID={} частично обновлен, версия {}", id, updatedUser.getVersion());
+
+            UserResponseDto result = mapper.toDto(updatedUser);
+            metrics.record(Operation.UPDATE, Phase.MAPPING, mappingStarted);
+            return result;
+        } catch (OptimisticLockException e) {
+            onConflict(id, e);
+            throw e;
+        } catch (Exception e) {
+            metrics.error(Operation.UPDATE);
+            log.error("Ошибка при частичном обновлении пользователя с ID={}: {}", id, e.getMessage(), e);
+            throw e;
+        } finally {
+            metrics.record(Operation.UPDATE, Phase.TOTAL, started);
+        }
+    }
+
+    public List<UserResponseDto> patchUsers(Map<Long, UserPatchDto> patches) {
+        log.info("Пакетное частичное обновление {} пользователей", patches.size());
+        try {
+            patches.forEach((id, patch) -> {
+                validateId(id);
+                validatePatch(patch);
+            });
+            List<User> updated = repository.updateAll(patches);
+            cache.invalidateAll(patches.keySet());
+            return updated.stream().map(mapper::toDto).toList();
+        } catch (OptimisticLockException e) {
+            cache.invalidateAll(patches.keySet());
+            log.warn("Конфликт версий при пакетном обновлении: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Ошибка при пакетном обновлении пользователей: {}", e.getMessage(), e);
+            throw e;
         }
     }
 
     public void deleteUser(Long id) {
-        log.info("Удаление пользователя с ID: {}", id);
+        log.debug("Удаление пользователя с ID: {}", id);
+        long started = System.nanoTime();
         try {
             validateId(id);
+            long dbStarted = System.nanoTime();
             repository.delete(id);
-            log.info("Пользователь с ID={} успешно удален", id);
+            cache.invalidate(id);
+            metrics.record(Operation.DELETE, Phase.DB, dbStarted);
+            log.debug("Пользователь с ID={} успешно удален", id);
         } catch (Exception e) {
+            metrics.error(Operation.DELETE);
             log.error("Ошибка при удалении пользователя с ID={}: {}", id, e.getMessage(), e);
             throw e;
+        } finally {
+            metrics.record(Operation.DELETE, Phase.TOTAL, started);
+        }
+    }
+
+    public int deleteUsers(Collection<Long> ids) {
+        log.info("Пакетное удаление {} пользователей", ids.size());
+        try {
+            ids.forEach(this::validateId);
+            int deleted = repository.deleteAll(ids);
+            cache.invalidateAll(ids);
+            return deleted;
+        } catch (Exception e) {
+            log.error("Ошибка при пакетном удалении пользователей: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    public long deleteUsersWhere(UserCriteria criteria) {
+        log.info("Удаление пользователей по условию: {}", criteria);
+        try {
+            if (criteria == null || criteria.isEmpty()) {
+                throw new IllegalArgumentException("Условие отбора пользователей не должно быть пустым");
+            }
+            long deleted = repository.deleteWhere(criteria);
+            // id удаленных строк сервису неизвестны, поэтому кэш очищается целиком
+            if (deleted > 0) {
+                cache.invalidateAll();
+            }
+            return deleted;
+        } catch (Exception e) {
+            log.error("Ошибка при удалении пользователей по условию: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Изменения, сделанные другими узлами: измененные и удаленные пользователи вытесняются из кэша по ID,
+     * а при потере уведомлений кэш очищается целиком.
+     */
+    public void applyRemoteChanges(UserChangeBatch changes) {
+        if (changes.resync()) {
+            log.info("Сброс кэша пользователей после переподключения к уведомлениям");
+            cache.invalidateAll();
+            return;
+        }
+        cache.invalidateAll(changes.updated());
+        cache.invalidateAll(changes.deleted());
+    }
+
+    public UserCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    public UserServiceMetrics metrics() {
+        return metrics;
+    }
+
+    private UserResponseDto loadUser(Long id) {
+        long started = System.nanoTime();
+        try {
+            return repository.findDtoById(id);
+        } finally {
+            metrics.record(Operation.READ_BY_ID, Phase.DB, started);
+        }
+    }
+
+    private int createChunk(List<UserRequestDto> dtos, int from, int to, List<BatchCreateError> errors) {
+        List<User> users = new ArrayList<>(to - from);
+        List<Integer> indexes = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            UserRequestDto dto = dtos.get(i);
+            String errorMsg = collectViolations(dto);
+            if (errorMsg != null) {
+                errors.add(new BatchCreateError(i, dto, errorMsg));
+                continue;
+            }
+            users.add(toUserEntity(dto));
+            indexes.add(i);
+        }
+        if (users.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            repository.createAll(users);
+            log.debug("Сохранен пакет пользователей [{}, {}): {}", from, to, users.size());
+            return users.size();
+        } catch (Exception e) {
+            log.error("Ошибка при сохранении пакета пользователей [{}, {}): {}", from, to, e.getMessage(), e);
+            String errorMsg = "Не удалось сохранить пакет: " + e.getMessage();
+            indexes.forEach(i -> errors.add(new BatchCreateError(i, dtos.get(i), errorMsg)));
+            return 0;
+        }
+    }
+
+    private boolean isAcceptedForLoad(UserRequestDto dto) {
+        String errorMsg = collectViolations(dto);
+        if (errorMsg != null) {
+            log.debug("Строка отклонена при загрузке: {}", errorMsg);
+            return false;
         }
+        return true;
+    }
+
+    private String collectViolations(UserRequestDto dto) {
+        if (dto == null) {
+            return "Данные пользователя не должны быть пустыми";
+        }
+        List<String> violations = requestValidator().violations(dto);
+        return violations.isEmpty() ? null : String.join("; ", violations);
     }
 
     private void validateDto(UserRequestDto dto) {
         log.trace("Валидация DTO: {}", dto);
-        Set<ConstraintViolation<UserRequestDto>> violations = validator.validate(dto);
+        List<String> violations = requestValidator().violations(dto);
 
         if (!violations.isEmpty()) {
-            String errorMsg = violations.iterator().next().getMessage();
+            String errorMsg = violations.get(0);
             log.warn("Ошибка валидации DTO: {}", errorMsg);
             throw new IllegalArgumentException(errorMsg);
         }
     }
 
+    private void validatePatch(UserPatchDto patch) {
+        if (patch == null) {
+            throw new IllegalArgumentException("Данные пользователя не должны быть пустыми");
+        }
+        validateField("name", patch.name());
+        validateField("email", patch.email());
+        validateField("age", patch.age());
+        validateField("created_at", patch.created_at());
+    }
+
+    /**
+     * Поле патча проверяется теми же ограничениями, что и одноименное поле {@link UserRequestDto}.
+     */
+    private void validateField(String property, Object value) {
+        if (value == null) {
+            return;
+        }
+        Set<ConstraintViolation<UserRequestDto>> violations =
+                validator().validateValue(UserRequestDto.class, property, value);
+        if (!violations.isEmpty()) {
+            String errorMsg = violations.iterator().next().getMessage();
+            log.warn("Ошибка валидации поля {}: {}", property, errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+    }
+
+    private void onConflict(Long id, OptimisticLockException e) {
+        cache.invalidate(id);
+        metrics.error(Operation.UPDATE);
+        log.warn("Конфликт версий при обновлении пользователя с ID={}: {}", id, e.getMessage());
+    }
+
     private void validateId(Long id) {
         log.trace("Валидация ID: {}", id);
         if (id == null || id <= 0) {
@@ -140,6 +667,27 @@ public class UserService {
         }
     }
 
+    private void validateCriteria(UserCriteria criteria) {
+        if (criteria == null) {
+            throw new IllegalArgumentException("Условие отбора пользователей не задано");
+        }
+        if (criteria.minAge() != null && criteria.maxAge() != null && criteria.minAge() > criteria.maxAge()) {
+            throw new IllegalArgumentException("Минимальный возраст больше максимального");
+        }
+        if (criteria.createdFrom() != null && criteria.createdBefore() != null
+                && !criteria.createdFrom().isBefore(criteria.createdBefore())) {
+            throw new IllegalArgumentException("Начало периода создания должно быть раньше его конца");
+        }
+    }
+
+    private void validateLimit(int limit) {
+        if (limit <= 0) {
+            String errorMsg = "Размер страницы или пакета должен быть положительным числом";
+            log.warn(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+    }
+
     private User toUserEntity(UserRequestDto dto) {
         log.trace("Преобразование DTO в сущность User");
         try {
@@ -149,4 +697,76 @@ public class UserService {
             throw new RuntimeException("Ошибка при обработке данных пользователя", e);
         }
     }
-}
\ No newline at end of file
+
+    private Validator validator() {
+        return validator != null ? validator : DefaultValidator.INSTANCE;
+    }
+
+    private UserRequestValidator requestValidator() {
+        return requestValidator != null ? requestValidator : DefaultValidator.REQUEST_VALIDATOR;
+    }
+
+    /**
+     * Фабрика валидаторов дорогая, а {@link Validator} потокобезопасен: один экземпляр на все сервисы.
+     * Класс-holder инициализируется при первом обращении, поэтому старт приложения его не ждет.
+     */
+    private static final class DefaultValidator {
+        private static final Validator INSTANCE = Validation.buildDefaultValidatorFactory().getValidator();
+        private static final UserRequestValidator REQUEST_VALIDATOR = new UserRequestValidator(INSTANCE);
+    }
+
+    private final class ReadAllIterator implements Iterator<UserResponseDto> {
+        private final long started = System.nanoTime();
+        private Stream<UserResponseDto> pages;
+        private Iterator<UserResponseDto> source;
+        private long dbNanos;
+        private boolean finished;
+
+        @Override
+        public boolean hasNext() {
+            long readStarted = System.nanoTime();
+            try {
+                if (source == null) {
+                    pages = repository.streamAll(PAGE_SIZE);
+                    source = pages.iterator();
+                }
+                boolean hasNext = source.hasNext();
+                dbNanos += System.nanoTime() - readStarted;
+                if (!hasNext) {
+                    finish();
+                }
+                return hasNext;
+            } catch (RuntimeException e) {
+                dbNanos += System.nanoTime() - readStarted;
+                metrics.error(Operation.READ_ALL);
+                finish();
+                log.error("Ошибка при получении списка пользователей: {}", e.getMessage(), e);
+                throw new RuntimeException("Не удалось получить список пользователей", e);
+            }
+        }
+
+        @Override
+        public UserResponseDto next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return source.next();
+        }
+
+        private void close() {
+            finish();
+            if (pages != null) {
+                pages.close();
+            }
+        }
+
+        private void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            metrics.recordNanos(Operation.READ_ALL, Phase.DB, dbNanos);
+            metrics.record(Operation.READ_ALL, Phase.TOTAL, started);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package service;
+
+import dto.UserCriteria;
+import dto.UserRequestDto;
+import dto.UserResponseDto;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронный фасад над {@link UserService}: каждая операция выполняется в отдельном (виртуальном) потоке,
+ * а число одновременных обращений к БД ограничено размером пула соединений.
+ */
+@Slf4j
+public class UserServiceExecutor implements AutoCloseable {
+    private static final String POOL_SIZE_PROPERTY = "hibernate.hikari.maximumPoolSize";
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final UserService service;
+    private final ExecutorService executor;
+    private final Semaphore dbPermits;
+
+    public UserServiceExecutor(UserService service, int maxConcurrentDbCalls) {
+        this(service, newThreadPerTaskExecutor(maxConcurrentDbCalls), maxConcurrentDbCalls);
+    }
+
+    public UserServiceExecutor(UserService service, ExecutorService executor, int maxConcurrentDbCalls) {
+        log.info("Инициализация UserServiceExecutor: не более {} одновременных обращений к БД", maxConcurrentDbCalls);
+        this.service = service;
+        this.executor = executor;
+        this.dbPermits = new Semaphore(maxConcurrentDbCalls, true);
+    }
+
+    public static UserServiceExecutor forPool(UserService service, EntityManagerFactory emf) {
+        Object poolSize = emf.getProperties().get(POOL_SIZE_PROPERTY);
+        return new UserServiceExecutor(service,
+                poolSize == null ? DEFAULT_POOL_SIZE : Integer.parseInt(poolSize.toString()));
+    }
+
+    public CompletableFuture<Void> createUser(UserRequestDto dto) {
+        if (service.isWriteBehind()) {
+            // Ожидание групповой записи не занимает соединение: в БД пишет один поток очереди
+            return service.createUserAsync(dto).thenAccept(id -> {
+            });
+        }
+        return submit(() -> {
+            service.createUser(dto);
+            return null;
+        });
+    }
+
+    /**
+     * Попадание в кэш не занимает соединение, поэтому обслуживается в вызывающем потоке и не ждет в очереди
+     * за операциями с БД ни разрешения, ни потока (на Java 17 пул потоков тоже размером с пул соединений).
+     * Если запись вытеснят между проверкой и чтением, этот запрос пройдет мимо семафора; его все равно
+     * ограничивает пул соединений.
+     */
+    public CompletableFuture<UserResponseDto> readUserById(Long id) {
+        if (service.isCached(id)) {
+            try {
+                return CompletableFuture.completedFuture(service.readUserById(id));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return submit(() -> service.readUserById(id));
+    }
+
+    public CompletableFuture<List<UserResponseDto>> readUsersPage(Long afterId, int limit) {
+        return submit(() -> service.readUsersPage(afterId, limit));
+    }
+
+    public CompletableFuture<List<UserResponseDto>> searchUsers(UserCriteria criteria, Long afterId, int limit) {
+        return submit(() -> service.searchUsers(criteria, afterId, limit));
+    }
+
+    public CompletableFuture<UserResponseDto> updateUser(Long id, UserRequestDto dto, Long expectedVersion) {
+        return submit(() -> service.updateUser(id, dto, expectedVersion));
+    }
+
+    public CompletableFuture<Void> deleteUser(Long id) {
+        return submit(() -> {
+            service.deleteUser(id);
+            return null;
+        });
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                dbPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException("Операция прервана в ожидании соединения", e);
+            }
+            try {
+                return operation.get();
+            } finally {
+                dbPermits.release();
+            }
+        }, executor);
+    }
+
+    public int availableDbPermits() {
+        return dbPermits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        log.info("Остановка UserServiceExecutor");
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Не все операции завершились за отведенное время");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Виртуальные потоки появились в Java 21, а проект собирается под Java 17,
+     * поэтому фабрика ищется рефлексией. На старых JVM используется фиксированный пул по числу соединений.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(int fallbackThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Виртуальные потоки недоступны, используется пул из {} потоков", fallbackThreads);
+            return Executors.newFixedThreadPool(fallbackThreads);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики и гистограммы задержек операций {@link UserService} с разбивкой на время БД,
+ * валидации и преобразования результата. Запись ({@link #record}, {@link #error}) не выделяет память:
+ * значения пишутся в {@link Recorder}, а накопление в итоговые гистограммы происходит при чтении.
+ */
+@Slf4j
+public class UserServiceMetrics {
+    private static final long LOWEST_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final String JMX_NAME = "service:type=UserServiceMetrics,operation=";
+
+    public enum Operation {
+        CREATE, READ_ALL, READ_BY_ID, SEARCH, UPDATE, DELETE;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum Phase {
+        TOTAL, DB, VALIDATION, MAPPING;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final OperationMetrics[] operations;
+
+    public UserServiceMetrics() {
+        Operation[] values = Operation.values();
+        operations = new OperationMetrics[values.length];
+        for (Operation operation : values) {
+            operations[operation.ordinal()] = new OperationMetrics();
+        }
+    }
+
+    /**
+     * Общий для процесса экземпляр, зарегистрированный в JMX.
+     */
+    public static UserServiceMetrics global() {
+        return Global.INSTANCE;
+    }
+
+    /**
+     * Записывает время фазы от {@code startedNanos} до текущего момента и возвращает текущий момент,
+     * чтобы его можно было передать началом следующей фазы.
+     */
+    public long record(Operation operation, Phase phase, long startedNanos) {
+        long now = System.nanoTime();
+        recordNanos(operation, phase, now - startedNanos);
+        return now;
+    }
+
+    /**
+     * Записывает уже измеренную длительность фазы, например сумму нескольких отрезков.
+     */
+    public void recordNanos(Operation operation, Phase phase, long elapsedNanos) {
+        long elapsed = Math.min(Math.max(elapsedNanos, 0), HIGHEST_NANOS);
+        operations[operation.ordinal()].recorders[phase.ordinal()].recordValue(elapsed);
+    }
+
+    public void error(Operation operation) {
+        operations[operation.ordinal()].errors.increment();
+    }
+
+    public OperationMetricsMXBean get(Operation operation) {
+        return operations[operation.ordinal()];
+    }
+
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4_096);
+        out.append("# HELP user_service_errors_total Число операций UserService, завершившихся ошибкой\n")
+                .append("# TYPE user_service_errors_total counter\n");
+        for (Operation operation : Operation.values()) {
+            out.append("user_service_errors_total{operation=\"").append(operation.label()).append("\"} ")
+                    .append(get(operation).getErrors()).append('\n');
+        }
+
+        out.append("# HELP user_service_duration_seconds Задержка операций UserService по фазам\n")
+                .append("# TYPE user_service_duration_seconds summary\n");
+        for (Operation operation : Operation.values()) {
+            for (Phase phase : Phase.values()) {
+                LatencySnapshot latency = operations[operation.ordinal()].latency(phase);
+                String labels = "operation=\"" + operation.label() + "\",phase=\"" + phase.label() + "\"";
+                appendQuantile(out, labels, "0.5", latency.getP50Micros());
+                appendQuantile(out, labels, "0.99", latency.getP99Micros());
+                appendQuantile(out, labels, "0.999", latency.getP999Micros());
+                out.append("user_service_duration_seconds_sum{").append(labels).append("} ")
+                        .append(latency.getMeanMicros() * latency.getCount() * NANOS_PER_MICRO / NANOS_PER_SECOND)
+                        .append('\n');
+                out.append("user_service_duration_seconds_count{").append(labels).append("} ")
+                        .append(latency.getCount()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private static void appendQuantile(StringBuilder out, String labels, String quantile, double micros) {
+        out.append("user_service_duration_seconds{").append(labels).append(",quantile=\"").append(quantile)
+                .append("\"} ").append(micros * NANOS_PER_MICRO / NANOS_PER_SECOND).append('\n');
+    }
+
+    private void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Operation operation : Operation.values()) {
+            try {
+                server.registerMBean(get(operation), new ObjectName(JMX_NAME + operation.label()));
+            } catch (JMException e) {
+                log.warn("Не удалось зарегистрировать метрики операции {} в JMX: {}", operation, e.getMessage());
+            }
+        }
+    }
+
+    private static final class Global {
+        private static final UserServiceMetrics INSTANCE = new UserServiceMetrics();
+
+        static {
+            INSTANCE.registerMBeans();
+        }
+    }
+
+    private static final class OperationMetrics implements OperationMetricsMXBean {
+        private final Recorder[] recorders = new Recorder[Phase.values().length];
+        private final Histogram[] intervals = new Histogram[Phase.values().length];
+        private final Histogram[] accumulated = new Histogram[Phase.values().length];
+        private final LongAdder errors = new LongAdder();
+
+        OperationMetrics() {
+            for (int i = 0; i < recorders.length; i++) {
+                recorders[i] = new Recorder(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+                accumulated[i] = new Histogram(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+            }
+        }
+
+        synchronized LatencySnapshot latency(Phase phase) {
+            int i = phase.ordinal();
+            intervals[i] = recorders[i].getIntervalHistogram(intervals[i]);
+            accumulated[i].add(intervals[i]);
+
+            Histogram histogram = accumulated[i];
+            return new LatencySnapshot(
+                    histogram.getTotalCount(),
+                    histogram.getMean() / NANOS_PER_MICRO,
+                    histogram.getValueAtPercentile(50) / NANOS_PER_MICRO,
+                    histogram.getValueAtPercentile(99) / NANOS_PER_MICRO,
+                    histogram.getValueAtPercentile(99.9) / NANOS_PER_MICRO,
+                    histogram.getMaxValue() / NANOS_PER_MICRO);
+        }
+
+        @Override
+        public long getCalls() {
+            return latency(Phase.TOTAL).getCount();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        @Override
+        public LatencySnapshot getTotal() {
+            return latency(Phase.TOTAL);
+        }
+
+        @Override
+        public LatencySnapshot getDb() {
+            return latency(Phase.DB);
+        }
+
+        @Override
+        public LatencySnapshot getValidation() {
+            return latency(Phase.VALIDATION);
+        }
+
+        @Override
+        public LatencySnapshot getMapping() {
+            return latency(Phase.MAPPING);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package service;
+
+import entity.User;
+import lombok.extern.slf4j.Slf4j;
+import repository.UserRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отложенная запись новых пользователей: вызовы {@link #submit} складываются в ограниченную очередь,
+ * а один поток сохраняет их пачками в одной транзакции — по достижении размера пачки или по истечении окна
+ * с момента первого пользователя в пачке. Future каждого вызова завершается только после коммита его строки.
+ * <p>
+ * Если пачка не сохранилась (например, из-за дубликата email), пользователи пачки сохраняются по одному,
+ * чтобы ошибка досталась только виновнику. При заполненной очереди {@link #submit} ждет свободного места
+ * не дольше заданного времени, а затем отклоняет вызов.
+ */
+@Slf4j
+public class UserWriteBehindQueue implements AutoCloseable {
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final UserRepository repository;
+    private final BlockingQueue<PendingUser> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long offerTimeoutNanos;
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    private record PendingUser(User user, CompletableFuture<User> result) {
+    }
+
+    public UserWriteBehindQueue(UserRepository repository, int capacity, int maxBatchSize,
+                                Duration maxDelay, Duration offerTimeout) {
+        if (capacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Размер очереди и пачки должен быть положительным числом");
+        }
+        log.info("Инициализация очереди отложенной записи: емкость {}, пачка до {}, окно {} мс",
+                capacity, maxBatchSize, maxDelay.toMillis());
+        this.repository = repository;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.flusher = new Thread(this::run, "user-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Ставит нового пользователя в очередь; future завершается сохраненной сущностью с присвоенным ID.
+     */
+    public CompletableFuture<User> submit(User user) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Очередь записи остановлена"));
+        }
+        PendingUser pending = new PendingUser(user, new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                log.warn("Очередь записи переполнена: {} пользователей ожидают сохранения", queue.size());
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Очередь записи переполнена"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Ожидание места в очереди записи прервано", e));
+        }
+        // Остановка могла начаться между проверкой и постановкой в очередь: такого пользователя никто не сохранит
+        if (closed && queue.remove(pending)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Очередь записи остановлена"));
+        }
+        return pending.result();
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Перестает принимать пользователей и дожидается сохранения всех уже поставленных в очередь.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        log.info("Остановка очереди отложенной записи, ожидают сохранения: {}", queue.size());
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingUser> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (flusher.isAlive() || !rest.isEmpty()) {
+            log.warn("Очередь записи не успела сохранить всех пользователей, отклонено: {}", rest.size());
+        }
+        rest.forEach(pending -> pending.result().completeExceptionally(
+                new IllegalStateException("Очередь записи остановлена")));
+    }
+
+    private void run() {
+        List<PendingUser> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                PendingUser first = queue.poll(IDLE_POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch, System.nanoTime() + maxDelayNanos);
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flush(batch);
+        } catch (Exception e) {
+            log.error("Поток отложенной записи остановлен из-за ошибки", e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+        log.info("Поток отложенной записи завершен");
+    }
+
+    /**
+     * Добирает пачку до окна; ожидание нарезано короткими интервалами, чтобы остановка не ждала конца окна.
+     */
+    private void collect(List<PendingUser> batch, long deadline) throws InterruptedException {
+        while (true) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0 || closed) {
+                return;
+            }
+            PendingUser next = queue.poll(Math.min(remaining, IDLE_POLL_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void flush(List<PendingUser> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            repository.createAll(batch.stream().map(PendingUser::user).toList());
+            batch.forEach(pending -> pending.result().complete(pending.user()));
+            log.debug("Групповая запись {} пользователей", batch.size());
+            return;
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            log.warn("Групповая запись {} пользователей не удалась, сохранение по одному: {}", batch.size(), e.getMessage());
+        }
+        for (PendingUser pending : batch) {
+            User user = pending.user();
+            // ID и версия остались от откаченной транзакции
+            user.setId(null);
+            user.setVersion(null);
+            try {
+                repository.create(user);
+                pending.result().complete(user);
+            } catch (Exception e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package view;
 
 import lombok.Getter;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Scanner;
@@ -17,6 +18,9 @@ public class ConsoleView {
     private final String INPUT_USER_ID_MESSAGE = "Введите ID пользователя: ";
     private final String INPUT_CREATE_AT_MESSAGE = "Введите дату создания в формате \"dd.mm.yyyy\": ";
     private final String FORMAT_DATE = "dd.MM.yyyy";
+    private final String INPUT_EXPORT_FILE_MESSAGE = "Введите путь к файлу (.gz — со сжатием): ";
+    private final String INPUT_EXPORT_FORMAT_MESSAGE = "Введите формат (csv/jsonl): ";
+    private final String INPUT_EXPORT_RESUME_MESSAGE = "Продолжить прерванную выгрузку? (да/нет): ";
 
 
     public void printMenu() {
@@ -65,4 +69,19 @@ public class ConsoleView {
         return LocalDate.parse(input, formatter);
     }
 
+    public Path askExportFile() {
+        System.out.print(INPUT_EXPORT_FILE_MESSAGE);
+        return Path.of(scanner.nextLine().trim());
+    }
+
+    public String askExportFormat() {
+        System.out.print(INPUT_EXPORT_FORMAT_MESSAGE);
+        return scanner.nextLine().trim();
+    }
+
+    public boolean askExportResume() {
+        System.out.print(INPUT_EXPORT_RESUME_MESSAGE);
+        return scanner.nextLine().trim().equalsIgnoreCase("да");
+    }
+
 }
@@ -9,6 +9,7 @@ public enum Menu {
     READ_BY_ID("найти пользователя по ID"),
     UPDATE("обновить"),
     DELETE("удалить"),
+    EXPORT("выгрузить в файл"),
     EXIT("выход");
 
     private final String command;
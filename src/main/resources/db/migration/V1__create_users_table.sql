@@ -0,0 +1,13 @@
+-- Таблица и последовательность в том виде, в каком их раньше создавал hbm2ddl,
+-- поэтому существующие базы принимаются через baseline без изменений.
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users
+(
+    id         BIGINT PRIMARY KEY,
+    name       VARCHAR(255),
+    email      VARCHAR(255),
+    age        INTEGER,
+    created_at DATE,
+    version    BIGINT NOT NULL DEFAULT 0
+);
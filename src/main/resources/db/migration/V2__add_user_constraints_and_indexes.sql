@@ -0,0 +1,11 @@
+ALTER TABLE users
+    ALTER COLUMN name SET NOT NULL,
+    ALTER COLUMN email SET NOT NULL;
+
+ALTER TABLE users
+    ADD CONSTRAINT users_age_check CHECK (age > 0 AND age < 100),
+    ADD CONSTRAINT users_created_at_check CHECK (created_at <= CURRENT_DATE);
+
+CREATE UNIQUE INDEX users_email_key ON users (email);
+CREATE INDEX users_created_at_idx ON users (created_at);
+CREATE INDEX users_age_idx ON users (age);
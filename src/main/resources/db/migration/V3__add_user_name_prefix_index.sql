@@ -0,0 +1,2 @@
+-- Поиск по префиксу имени (LIKE 'abc%'): обычный B-tree не подходит при не-C локали базы.
+CREATE INDEX users_name_prefix_idx ON users (name varchar_pattern_ops);
@@ -0,0 +1,5 @@
+-- Нечеткий поиск по имени и email: операторы pg_trgm (% и <%) используют эти GIN-индексы.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX users_name_trgm_idx ON users USING gin (name gin_trgm_ops);
+CREATE INDEX users_email_trgm_idx ON users USING gin (email gin_trgm_ops);
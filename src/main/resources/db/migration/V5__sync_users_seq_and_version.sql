@@ -0,0 +1,15 @@
+-- Базы, принятые через baseline, могли получить таблицу от прежней схемы: id из IDENTITY, без столбца version.
+-- V1 в таких базах не меняет таблицу и создает users_seq с 1, поэтому первые вставки столкнулись бы с занятыми id.
+-- Шаги идемпотентны и ничего не меняют в базах, созданных миграциями.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT;
+UPDATE users SET version = 0 WHERE version IS NULL;
+ALTER TABLE users
+    ALTER COLUMN version SET DEFAULT 0,
+    ALTER COLUMN version SET NOT NULL;
+
+-- Hibernate (pooled) и загрузчик COPY считают значение v последовательности верхней границей блока (v - 50, v],
+-- поэтому после setval(max(id)) следующий блок начинается сразу за существующими строками.
+-- Последовательность, уже ушедшую дальше, не откатываем.
+SELECT setval('users_seq', GREATEST(MAX(id), (SELECT last_value FROM users_seq)))
+FROM users
+HAVING MAX(id) IS NOT NULL;
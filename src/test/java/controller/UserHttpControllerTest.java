@@ -0,0 +1,293 @@
+package controller;
+
+import dto.BatchCreateResult;
+import dto.ExportResult;
+import dto.UserCriteria;
+import dto.UserPatchDto;
+import dto.UserRequestDto;
+import dto.UserResponseDto;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import repository.UserExporter.Format;
+import repository.UserNotFoundException;
+import service.UserCache;
+import service.UserService;
+import service.UserServiceExecutor;
+import service.UserServiceMetrics;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserHttpControllerTest {
+
+    private static final String UPDATE_BODY =
+            "{\"name\":\"New\",\"email\":\"new@example.com\",\"age\":30,\"created_at\":\"2024-01-15\"}";
+
+    @Mock
+    private UserService service;
+
+    private UserHttpController controller;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        controller = new UserHttpController(service, new UserServiceExecutor(service, 4), 0);
+        controller.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        controller.close();
+    }
+
+    @Test
+    void getById_existingUser_returnsJson() throws Exception {
+        when(service.readUserById(1L)).thenReturn(user(1L));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/1")).GET());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"name\":\"User 1\""));
+        assertTrue(response.body().contains("\"createdAt\":\"2024-01-15\""));
+    }
+
+    @Test
+    void getById_missingUser_returns404() throws Exception {
+        when(service.readUserById(5L)).thenThrow(new UserNotFoundException("Пользователь не найден"));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/5")).GET());
+
+        assertEquals(404, response.statusCode());
+        assertTrue(response.body().contains("Пользователь не найден"));
+    }
+
+    @Test
+    void create_invalidDto_returns400() throws Exception {
+        doThrow(new IllegalArgumentException("Имя не должно быть пустым")).when(service).createUser(any());
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"name\":\"\",\"email\":\"a@b.c\",\"age\":20,\"created_at\":\"2024-01-15\"}")));
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void create_validDto_returns201AndPassesDto() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"name\":\"Ann\",\"email\":\"ann@example.com\",\"age\":20,\"created_at\":\"2024-01-15\"}")));
+
+        assertEquals(201, response.statusCode());
+        ArgumentCaptor<UserRequestDto> captor = ArgumentCaptor.forClass(UserRequestDto.class);
+        verify(service).createUser(captor.capture());
+        assertEquals("Ann", captor.getValue().name());
+        assertEquals(LocalDate.of(2024, 1, 15), captor.getValue().created_at());
+    }
+
+    @Test
+    void batchCreate_returnsResult() throws Exception {
+        when(service.createUsers(anyList())).thenReturn(new BatchCreateResult(2, List.of()));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("[{\"name\":\"A\"},{\"name\":\"B\"}]")));
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"created\":2"));
+    }
+
+    @Test
+    void list_streamsAllPagesUntilLimit() throws Exception {
+        when(service.readUsersPage(isNull(), eq(500))).thenReturn(users(1, 500));
+        when(service.readUsersPage(eq(500L), eq(200))).thenReturn(users(501, 200));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users?limit=700")).GET());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("[{\"id\":1,"));
+        assertTrue(response.body().endsWith("}]"));
+        assertEquals(700, response.body().split("\"id\":").length - 1);
+    }
+
+    @Test
+    void list_withFilters_searchesByCriteria() throws Exception {
+        UserCriteria criteria = UserCriteria.builder().namePrefix("Ann").minAge(30).build();
+        when(service.searchUsers(eq(criteria), isNull(), eq(500))).thenReturn(users(1, 2));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users?namePrefix=Ann&minAge=30")).GET());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(2, response.body().split("\"id\":").length - 1);
+        verify(service, never()).readUsersPage(any(), anyInt());
+    }
+
+    @Test
+    void search_returnsRankedMatches() throws Exception {
+        when(service.searchUsers("smith", 20)).thenReturn(users(7, 1));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/search?q=smith")).GET());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("[{\"id\":7,"));
+    }
+
+    @Test
+    void search_multiWordQuery_decodedFromPlus() throws Exception {
+        when(service.searchUsers("anna smith", 20)).thenReturn(users(3, 1));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/search?q=anna+smith")).GET());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("[{\"id\":3,"));
+    }
+
+    @Test
+    void list_encodedEmail_keepsReservedCharacters() throws Exception {
+        UserCriteria criteria = UserCriteria.builder().email("a&b=c+d@example.com").build();
+        when(service.searchUsers(eq(criteria), isNull(), eq(500))).thenReturn(users(5, 1));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(
+                uri("/users?email=a%26b%3Dc%2Bd%40example.com")).GET());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(1, response.body().split("\"id\":").length - 1);
+    }
+
+    @Test
+    void export_gzipJsonLines_streamsFromAfterId() throws Exception {
+        when(service.exportUsers(any(WritableByteChannel.class), eq(Format.JSONL), eq(5L))).thenAnswer(invocation -> {
+            WritableByteChannel channel = invocation.getArgument(0);
+            channel.write(ByteBuffer.wrap("{\"id\":6}\n".getBytes(StandardCharsets.UTF_8)));
+            return new ExportResult(1, 6L, 10, 1);
+        });
+
+        HttpResponse<InputStream> response = client.send(
+                HttpRequest.newBuilder(uri("/users/export?format=jsonl&afterId=5&gzip=true")).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElseThrow());
+        try (InputStream body = new GZIPInputStream(response.body())) {
+            assertEquals("{\"id\":6}\n", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void export_unknownFormat_returns400() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/export?format=xml")).GET());
+
+        assertEquals(400, response.statusCode());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void put_withoutIfMatch_returns428() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/2"))
+                .PUT(HttpRequest.BodyPublishers.ofString(UPDATE_BODY)));
+
+        assertEquals(428, response.statusCode());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void put_ifMatchVersion_passedToService() throws Exception {
+        when(service.updateUser(eq(2L), any(), eq(3L))).thenReturn(user(2));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/2"))
+                .header("If-Match", "\"3\"")
+                .PUT(HttpRequest.BodyPublishers.ofString(UPDATE_BODY)));
+
+        assertEquals(200, response.statusCode());
+    }
+
+    @Test
+    void put_staleVersion_returns409() throws Exception {
+        when(service.updateUser(eq(2L), any(), eq(1L))).thenThrow(new OptimisticLockException("Пользователь с id=2 изменен"));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/2"))
+                .header("If-Match", "1")
+                .PUT(HttpRequest.BodyPublishers.ofString(UPDATE_BODY)));
+
+        assertEquals(409, response.statusCode());
+    }
+
+    @Test
+    void patch_versionConflict_returns409() throws Exception {
+        when(service.patchUser(eq(2L), any())).thenThrow(new OptimisticLockException("Пользователь с id=2 изменен"));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/2"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"name\":\"New\",\"version\":1}")));
+
+        assertEquals(409, response.statusCode());
+        ArgumentCaptor<UserPatchDto> captor = ArgumentCaptor.forClass(UserPatchDto.class);
+        verify(service).patchUser(eq(2L), captor.capture());
+        assertEquals(1L, captor.getValue().version());
+        assertNull(captor.getValue().email());
+    }
+
+    @Test
+    void metrics_includeServiceLatenciesAndUserCacheStats() throws Exception {
+        when(service.metrics()).thenReturn(new UserServiceMetrics());
+        when(service.cacheStats()).thenReturn(new UserCache.Stats(3, 1, 0.75, 1, 2.0, 0, 1));
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/metrics")).GET());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("user_service_errors_total{operation=\"read_by_id\"} 0"));
+        assertTrue(response.body().contains("user_cache_hit_ratio 0.75\n"));
+        assertTrue(response.body().contains("user_cache_load_duration_seconds_sum 0.002\n"));
+    }
+
+    @Test
+    void pathOnlySharingPrefix_returns404() throws Exception {
+        assertEquals(404, send(HttpRequest.newBuilder(uri("/usersX")).GET()).statusCode());
+        assertEquals(404, send(HttpRequest.newBuilder(uri("/users-anything/1")).GET()).statusCode());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void delete_returns204() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/users/3")).DELETE());
+
+        assertEquals(204, response.statusCode());
+        verify(service).deleteUser(3L);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + controller.getPort() + path);
+    }
+
+    private List<UserResponseDto> users(long fromId, int count) {
+        return LongStream.range(fromId, fromId + count).mapToObj(this::user).toList();
+    }
+
+    private UserResponseDto user(long id) {
+        return new UserResponseDto(id, "User " + id, "user" + id + "@example.com", 30, LocalDate.of(2024, 1, 15), 0L);
+    }
+}
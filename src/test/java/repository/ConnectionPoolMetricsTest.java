@@ -0,0 +1,44 @@
+package repository;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolMetricsTest {
+
+    @Test
+    void snapshot_ShouldReportPoolStateAndAcquireLatency() {
+        IMetricsTracker tracker = new ConnectionPoolMetrics().create("metrics-test-pool", new PoolStats(0) {
+            @Override
+            protected void update() {
+                totalConnections = 5;
+                activeConnections = 3;
+                idleConnections = 2;
+                pendingThreads = 1;
+                maxConnections = 10;
+            }
+        });
+
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MICROSECONDS.toNanos(300));
+        tracker.recordConnectionTimeout();
+
+        ConnectionPoolMetrics.Snapshot snapshot = ConnectionPoolMetrics.snapshot("metrics-test-pool").orElseThrow();
+
+        assertEquals(3, snapshot.active());
+        assertEquals(2, snapshot.idle());
+        assertEquals(1, snapshot.pending());
+        assertEquals(5, snapshot.total());
+        assertEquals(2, snapshot.acquired());
+        assertEquals(1, snapshot.timeouts());
+        assertEquals(200.0, snapshot.avgAcquireMicros(), 0.001);
+        assertEquals(300.0, snapshot.maxAcquireMicros(), 0.001);
+
+        tracker.close();
+        assertTrue(ConnectionPoolMetrics.snapshot("metrics-test-pool").isEmpty());
+    }
+}
@@ -0,0 +1,161 @@
+package repository;
+
+import dto.UserResponseDto;
+import entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.ReplicaRoutingUnitOfWork.Selection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingUnitOfWorkTest extends UserRepositoryContainer {
+
+    private static EntityManagerFactory firstReplica;
+    private static EntityManagerFactory secondReplica;
+
+    @BeforeAll
+    static void openReplicas() {
+        firstReplica = openReplica(1);
+        secondReplica = openReplica(2);
+    }
+
+    @AfterAll
+    static void closeReplicas() {
+        firstReplica.close();
+        secondReplica.close();
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            em.createQuery("delete from User").executeUpdate();
+            em.getTransaction().commit();
+        }
+        emf.getCache().evictAll();
+        try (Connection connection = replicaDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("delete from users");
+        }
+    }
+
+    @Test
+    void reads_goToReplica_writesToPrimary() throws SQLException {
+        UserRepositoryImpl repository = new UserRepositoryImpl(routing(Selection.ROUND_ROBIN, Duration.ZERO));
+        insertIntoReplica(1_000_000L, "Replica User");
+
+        repository.create(user("Primary User"));
+
+        assertEquals(List.of("Replica User"), repository.findAll().stream().map(UserResponseDto::name).toList());
+        try (EntityManager em = emf.createEntityManager()) {
+            assertEquals(List.of("Primary User"),
+                    em.createQuery("select u.name from User u", String.class).getResultList());
+        }
+    }
+
+    @Test
+    void roundRobin_alternatesReplicas() {
+        ReplicaRoutingUnitOfWork unitOfWork = routing(Selection.ROUND_ROBIN, Duration.ZERO);
+
+        List<EntityManagerFactory> used = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            used.add(unitOfWork.read(EntityManager::getEntityManagerFactory));
+        }
+
+        assertEquals(List.of(firstReplica, secondReplica, firstReplica, secondReplica), used);
+    }
+
+    @Test
+    void leastLoaded_avoidsBusyReplica() throws Exception {
+        ReplicaRoutingUnitOfWork unitOfWork = routing(Selection.LEAST_LOADED, Duration.ZERO);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<EntityManagerFactory> busy = CompletableFuture.supplyAsync(() -> unitOfWork.read(em -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return em.getEntityManagerFactory();
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        List<EntityManagerFactory> used = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            used.add(unitOfWork.read(EntityManager::getEntityManagerFactory));
+        }
+        release.countDown();
+
+        EntityManagerFactory idle = busy.get(10, TimeUnit.SECONDS) == firstReplica ? secondReplica : firstReplica;
+        assertEquals(List.of(idle, idle, idle), used);
+    }
+
+    @Test
+    void readYourWrites_readsFromPrimaryOnlyInsideWindow() throws Exception {
+        UserRepositoryImpl repository = new UserRepositoryImpl(routing(Selection.ROUND_ROBIN, Duration.ofMillis(300)));
+        insertIntoReplica(1_000_000L, "Replica User");
+
+        repository.create(user("Primary User"));
+        List<String> rightAfterWrite = repository.findAll().stream().map(UserResponseDto::name).toList();
+        TimeUnit.MILLISECONDS.sleep(400);
+        List<String> afterWindow = repository.findAll().stream().map(UserResponseDto::name).toList();
+
+        assertEquals(List.of("Primary User"), rightAfterWrite);
+        assertEquals(List.of("Replica User"), afterWindow);
+    }
+
+    @Test
+    void readYourWrites_failedWriteDoesNotOpenWindow() throws Exception {
+        ReplicaRoutingUnitOfWork routing = routing(Selection.ROUND_ROBIN, Duration.ofMinutes(1));
+        UserRepositoryImpl repository = new UserRepositoryImpl(routing);
+        insertIntoReplica(1_000_000L, "Replica User");
+
+        assertThrows(IllegalStateException.class, () -> routing.inTransaction(em -> {
+            em.persist(user("Rolled Back"));
+            throw new IllegalStateException("откат");
+        }));
+
+        assertEquals(List.of("Replica User"), repository.findAll().stream().map(UserResponseDto::name).toList());
+    }
+
+    private ReplicaRoutingUnitOfWork routing(Selection selection, Duration readYourWrites) {
+        return new ReplicaRoutingUnitOfWork(emf, List.of(firstReplica, secondReplica), selection, readYourWrites);
+    }
+
+    private void insertIntoReplica(long id, String name) throws SQLException {
+        try (Connection connection = replicaDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "insert into users (id, name, email, age, created_at) values (?, ?, ?, 30, current_date)")) {
+            statement.setLong(1, id);
+            statement.setString(2, name);
+            statement.setString(3, "replica" + id + "@example.com");
+            statement.executeUpdate();
+        }
+    }
+
+    private User user(String name) {
+        return User.builder()
+                .name(name)
+                .email(name.toLowerCase().replace(' ', '.') + "@example.com")
+                .age(30)
+                .createdAt(LocalDate.now())
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package repository;
+
+import dto.UserChangeBatch;
+import dto.UserPatchDto;
+import entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserChangeListenerTest extends UserRepositoryContainer {
+
+    private final BlockingQueue<UserChangeBatch> batches = new LinkedBlockingQueue<>();
+    private UserRepositoryImpl repository;
+    private UserChangeListener listener;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            em.createQuery("delete from User").executeUpdate();
+            em.getTransaction().commit();
+        }
+        repository = new UserRepositoryImpl(new UnitOfWork(emf), true);
+        listener = UserChangeListener.start(emf, batches::add);
+        assertTrue(await(UserChangeBatch::resync).resync());
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.close();
+    }
+
+    @Test
+    void repositoryWrites_deliveredAsBatchedChanges() throws InterruptedException {
+        List<User> users = IntStream.range(0, 3).mapToObj(this::user).toList();
+        repository.createAll(users);
+        Long updated = users.get(0).getId();
+        Long deleted = users.get(1).getId();
+        repository.patch(updated, UserPatchDto.builder().name("Patched").version(0L).build());
+        repository.delete(deleted);
+
+        Set<Long> seenUpdates = new HashSet<>();
+        Set<Long> seenDeletes = new HashSet<>();
+        long created = 0;
+        while (!seenDeletes.contains(deleted)) {
+            UserChangeBatch batch = await(changes -> !changes.resync());
+            seenUpdates.addAll(batch.updated());
+            seenDeletes.addAll(batch.deleted());
+            created += batch.created();
+        }
+
+        assertEquals(3, created);
+        assertEquals(Set.of(updated), seenUpdates);
+        assertEquals(Set.of(deleted), seenDeletes);
+    }
+
+    @Test
+    void remoteUpdate_evictsStaleSecondLevelCacheEntry() throws InterruptedException {
+        User user = user(0);
+        new UserRepositoryImpl(new UnitOfWork(emf), false).create(user);
+        assertEquals("User 0", repository.findById(user.getId()).getName());
+        assertTrue(emf.getCache().contains(User.class, user.getId()));
+
+        // Другой узел: изменение мимо Hibernate этой фабрики и уведомление в той же транзакции
+        new UnitOfWork(emf).runInTransaction(em -> em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement update = connection.prepareStatement("update users set name = 'Remote' where id = ?");
+                 PreparedStatement notify = connection.prepareStatement("select pg_notify(?, ?)")) {
+                update.setLong(1, user.getId());
+                update.executeUpdate();
+                notify.setString(1, UserChangeNotifier.CHANNEL);
+                notify.setString(2, "UPDATE:" + user.getId());
+                notify.execute();
+            }
+        }));
+
+        UserChangeBatch batch = await(changes -> !changes.resync());
+        assertEquals(Set.of(user.getId()), batch.updated());
+        assertFalse(emf.getCache().contains(User.class, user.getId()));
+        assertEquals("Remote", repository.findById(user.getId()).getName());
+    }
+
+    @Test
+    void lostConnection_reconnectsAndResyncs() throws InterruptedException {
+        new UnitOfWork(emf).runInTransaction(em -> em.createNativeQuery(
+                        "select pg_terminate_backend(pid) from pg_stat_activity where application_name = :name")
+                .setParameter("name", UserChangeListener.APPLICATION_NAME)
+                .getResultList());
+
+        assertTrue(await(UserChangeBatch::resync).resync());
+
+        User user = user(0);
+        repository.create(user);
+        assertEquals(1, await(changes -> !changes.resync()).created());
+    }
+
+    private UserChangeBatch await(Predicate<UserChangeBatch> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            UserChangeBatch batch = batches.poll(100, TimeUnit.MILLISECONDS);
+            if (batch != null && condition.test(batch)) {
+                return batch;
+            }
+        }
+        return fail("Не дождались изменений пользователей");
+    }
+
+    private User user(int i) {
+        return User.builder()
+                .name("User " + i)
+                .email("user" + i + "@example.com")
+                .age(30)
+                .createdAt(LocalDate.of(2020, 1, 1))
+                .build();
+    }
+}
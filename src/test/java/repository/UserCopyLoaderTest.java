@@ -0,0 +1,94 @@
+package repository;
+
+import dto.CopyLoadResult;
+import dto.UserRequestDto;
+import entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCopyLoaderTest extends UserRepositoryContainer {
+
+    private EntityManager em;
+    private UserCopyLoader copyLoader;
+
+    @BeforeEach
+    void setUp() {
+        em = emf.createEntityManager();
+        copyLoader = new UserCopyLoader(emf);
+
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM User").executeUpdate();
+        em.getTransaction().commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (em != null && em.isOpen()) {
+            em.close();
+        }
+    }
+
+    @Test
+    void load_ShouldCopyAcceptedRowsInChunks() {
+        List<UserRequestDto> rows = IntStream.range(0, 250)
+                .mapToObj(i -> UserRequestDto.builder()
+                        .name(i % 10 == 0 ? "" : "User \"" + i + "\"")
+                        .email("user" + i + "@example.com")
+                        .age(30)
+                        .created_at(LocalDate.now())
+                        .build())
+                .toList();
+
+        CopyLoadResult result = copyLoader.load(rows.iterator(), dto -> !dto.name().isEmpty(), 100);
+
+        assertEquals(225, result.loaded());
+        assertEquals(25, result.rejected());
+        assertEquals(225L, em.createQuery("select count(u) from User u", Long.class).getSingleResult());
+        assertEquals(1L, em.createQuery("select count(u) from User u where u.name = 'User \"1\"'", Long.class)
+                .getSingleResult());
+    }
+
+    @Test
+    void load_IdsShouldNotCollideWithHibernateGeneratedIds() {
+        User persisted = User.builder()
+                .name("Hibernate")
+                .email("hibernate@example.com")
+                .age(40)
+                .createdAt(LocalDate.now())
+                .build();
+        em.getTransaction().begin();
+        em.persist(persisted);
+        em.getTransaction().commit();
+
+        List<UserRequestDto> rows = IntStream.range(0, 60)
+                .mapToObj(i -> UserRequestDto.builder()
+                        .name("Copy " + i)
+                        .email("copy" + i + "@example.com")
+                        .age(20)
+                        .created_at(LocalDate.now())
+                        .build())
+                .toList();
+        copyLoader.load(rows.iterator(), dto -> true, 50);
+
+        em.getTransaction().begin();
+        for (int i = 0; i < 60; i++) {
+            em.persist(User.builder()
+                    .name("After " + i)
+                    .email("after" + i + "@example.com")
+                    .age(50)
+                    .createdAt(LocalDate.now())
+                    .build());
+        }
+        em.getTransaction().commit();
+
+        assertEquals(121L, em.createQuery("select count(distinct u.id) from User u", Long.class).getSingleResult());
+    }
+}
@@ -0,0 +1,134 @@
+package repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dto.ExportResult;
+import entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repository.UserExporter.Format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserExporterTest extends UserRepositoryContainer {
+
+    private static final String TRICKY_NAME = "Ёж \"Колючий\", \\ 😀\t\u0001";
+
+    private UserExporter exporter;
+    private List<User> users;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new UserExporter(emf);
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            em.createQuery("delete from User").executeUpdate();
+            em.getTransaction().commit();
+        }
+        users = IntStream.range(0, 3_000)
+                .mapToObj(i -> User.builder()
+                        .name(i == 1 ? TRICKY_NAME : "User " + i)
+                        .email("user" + i + "@example.com")
+                        .age(20 + i % 50)
+                        .createdAt(LocalDate.of(2024, 1, 1).plusDays(i % 300))
+                        .build())
+                .toList();
+        new UserRepositoryImpl(emf).createAll(users);
+    }
+
+    @Test
+    void csv_headerQuotingAndUtf8() throws IOException {
+        Path file = dir.resolve("users.csv");
+
+        ExportResult result = exporter.export(file, Format.CSV, false, null);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(3_000, result.exported());
+        assertEquals(users.get(2_999).getId(), result.lastId());
+        assertEquals(Files.size(file), result.bytes());
+        assertEquals(3_001, lines.size());
+        assertEquals("id,name,email,age,created_at", lines.get(0));
+        assertEquals(users.get(0).getId() + ",\"User 0\",\"user0@example.com\",20,2024-01-01", lines.get(1));
+        assertEquals(users.get(1).getId() + ",\"Ёж \"\"Колючий\"\", \\ 😀\t\u0001\",\"user1@example.com\",21,2024-01-02",
+                lines.get(2));
+    }
+
+    @Test
+    void jsonl_linesAreValidJson() throws IOException {
+        Path file = dir.resolve("users.jsonl");
+
+        exporter.export(file, Format.JSONL, false, null);
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(3_000, lines.size());
+        JsonNode tricky = mapper.readTree(lines.get(1));
+        assertEquals(users.get(1).getId(), tricky.get("id").asLong());
+        assertEquals(TRICKY_NAME, tricky.get("name").asText());
+        assertEquals("2024-01-02", tricky.get("createdAt").asText());
+        assertEquals(users.get(2_999).getId(), mapper.readTree(lines.get(2_999)).get("id").asLong());
+    }
+
+    @Test
+    void resume_truncatesPartialLineAndAppendsTheRest() throws IOException {
+        Path full = dir.resolve("full.jsonl");
+        Path partial = dir.resolve("partial.jsonl");
+        exporter.export(full, Format.JSONL, false, null);
+        byte[] expected = Files.readAllBytes(full);
+        Files.write(partial, Arrays.copyOf(expected, expected.length / 2));
+
+        Long afterId = UserExporter.resumePoint(partial, Format.JSONL);
+        ExportResult result = exporter.export(partial, Format.JSONL, false, afterId);
+
+        assertNotNull(afterId);
+        assertTrue(result.exported() > 0 && result.exported() < 3_000);
+        assertArrayEquals(expected, Files.readAllBytes(partial));
+    }
+
+    @Test
+    void resumePoint_csvWithOnlyHeader_startsOver() throws IOException {
+        Path file = dir.resolve("header.csv");
+        Files.writeString(file, "id,name,email,age,created_at\n12,\"Us");
+
+        assertNull(UserExporter.resumePoint(file, Format.CSV));
+        assertEquals("id,name,email,age,created_at\n", Files.readString(file));
+    }
+
+    @Test
+    void gzip_appendedMembersReadAsOneStream() throws IOException {
+        Path file = dir.resolve("users.csv.gz");
+        Long middle = users.get(1_499).getId();
+        exporter.export(file, Format.CSV, true, null);
+        String firstRun;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            firstRun = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        ExportResult appended = exporter.export(file, Format.CSV, true, middle);
+
+        String content;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals(1_500, appended.exported());
+        assertTrue(Files.size(file) < firstRun.length());
+        assertEquals(3_001 + 1_500, content.lines().count());
+        assertTrue(content.startsWith(firstRun));
+    }
+}
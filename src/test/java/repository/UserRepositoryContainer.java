@@ -3,10 +3,13 @@ package repository;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 import org.junit.jupiter.api.BeforeAll;
+import org.postgresql.ds.PGSimpleDataSource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import javax.sql.DataSource;
+import java.util.HashMap;
 import java.util.Map;
 
 @Testcontainers
@@ -21,6 +24,8 @@ class UserRepositoryContainer {
 
     protected static EntityManagerFactory emf;
 
+    private static PostgreSQLContainer<?> replica;
+
     @BeforeAll
     static void initEntityManager() {
         POSTGRES.start();
@@ -31,9 +36,41 @@ class UserRepositoryContainer {
                         "hibernate.connection.url", POSTGRES.getJdbcUrl(),
                         "hibernate.connection.username", POSTGRES.getUsername(),
                         "hibernate.connection.password", POSTGRES.getPassword(),
-                        "hibernate.hbm2ddl.auto", "update"
+                        "hibernate.hbm2ddl.auto", "none"
                 )
         );
+        DatabaseMigrations.migrate(emf);
+    }
+
+    /**
+     * Второй экземпляр Postgres в роли реплики; репликации нет, данные в него пишет сам тест.
+     */
+    protected static DataSource replicaDataSource() {
+        if (replica == null) {
+            replica = new PostgreSQLContainer<>(TestProperties.getPostgresImage())
+                    .withDatabaseName(TestProperties.getDatabaseName())
+                    .withUsername(TestProperties.getUsername())
+                    .withPassword(TestProperties.getPassword());
+            replica.start();
+            DatabaseMigrations.migrate(plainDataSource(replica.getJdbcUrl()));
+        }
+        return plainDataSource(replica.getJdbcUrl());
     }
-}
 
+    protected static EntityManagerFactory openReplica(int index) {
+        replicaDataSource();
+        Map<String, Object> settings = new HashMap<>(PersistenceSettings.forReplica("dev", replica.getJdbcUrl(), index));
+        settings.put("hibernate.connection.username", replica.getUsername());
+        settings.put("hibernate.connection.password", replica.getPassword());
+        settings.put("hibernate.hbm2ddl.auto", "none");
+        return Persistence.createEntityManagerFactory("test-container", settings);
+    }
+
+    private static DataSource plainDataSource(String url) {
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(url);
+        dataSource.setUser(TestProperties.getUsername());
+        dataSource.setPassword(TestProperties.getPassword());
+        return dataSource;
+    }
+}
@@ -1,12 +1,23 @@
 package repository;
 
+import dto.UserCriteria;
+import dto.UserPatchDto;
 import dto.UserResponseDto;
 import entity.User;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
 import org.junit.jupiter.api.*;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,7 +33,7 @@ class UserRepositoryImplTest extends UserRepositoryContainer {
     @BeforeEach
     void setUp() {
         em = emf.createEntityManager();
-        userRepository = new UserRepositoryImpl(em);
+        userRepository = new UserRepositoryImpl(emf);
 
         em.getTransaction().begin();
         em.createQuery("DELETE FROM User").executeUpdate();
@@ -48,6 +59,45 @@ class UserRepositoryImplTest extends UserRepositoryContainer {
         assertEquals(user.getName(), found.getName());
     }
 
+    @Test
+    void createAll_ShouldSaveAllUsersWithIds() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            users.add(createTestUser("batch" + i + "@example.com", "Batch " + i));
+        }
+
+        userRepository.createAll(users);
+
+        assertTrue(users.stream().allMatch(u -> u.getId() != null));
+        assertEquals(120L, em.createQuery("select count(u) from User u", Long.class).getSingleResult());
+    }
+
+    @Test
+    void create_FromConcurrentThreads_ShouldSaveAllUsers() throws Exception {
+        int threads = 8;
+        int usersPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < usersPerThread; i++) {
+                        userRepository.create(createTestUser("t" + thread + "u" + i + "@example.com", "User " + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals((long) threads * usersPerThread,
+                em.createQuery("select count(u) from User u", Long.class).getSingleResult());
+    }
+
     @Test
     void findAll_ShouldReturnAllSavedUsers() {
         User user1 = createTestUser();
@@ -65,6 +115,121 @@ class UserRepositoryImplTest extends UserRepositoryContainer {
         assertTrue(users.stream().anyMatch(u -> u.email().equals(user2.getEmail())));
     }
 
+    @Test
+    void findDtoById_ShouldReturnProjection() {
+        User user = createTestUser();
+        em.getTransaction().begin();
+        em.persist(user);
+        em.getTransaction().commit();
+
+        UserResponseDto found = userRepository.findDtoById(user.getId());
+
+        assertNotNull(found);
+        assertEquals(user.getId(), found.id());
+        assertEquals(user.getName(), found.name());
+        assertEquals(user.getEmail(), found.email());
+    }
+
+    @Test
+    void findDtoById_WhenUserDoesNotExist_ShouldReturnNull() {
+        assertNull(userRepository.findDtoById(999L));
+    }
+
+    @Test
+    void findDtoById_RepeatedLookup_ShouldHitSecondLevelCache() {
+        User user = createTestUser();
+        userRepository.create(user);
+        SecondLevelCacheMetrics metrics = new SecondLevelCacheMetrics(emf);
+
+        userRepository.findDtoById(user.getId());
+        long hitsBefore = metrics.snapshot().entityHits();
+        UserResponseDto found = userRepository.findDtoById(user.getId());
+
+        assertEquals(user.getEmail(), found.email());
+        assertTrue(metrics.snapshot().entityHits() > hitsBefore);
+    }
+
+    @Test
+    void update_ShouldInvalidateCachedUser() {
+        User user = createTestUser();
+        userRepository.create(user);
+        userRepository.findDtoById(user.getId());
+
+        User updated = createTestUser(UPDATED_EMAIL, UPDATED_NAME);
+        userRepository.update(user.getId(), updated);
+
+        assertEquals(UPDATED_NAME, userRepository.findDtoById(user.getId()).name());
+    }
+
+    @Test
+    void delete_ShouldInvalidateCachedUser() {
+        User user = createTestUser();
+        userRepository.create(user);
+        userRepository.findDtoById(user.getId());
+
+        userRepository.delete(user.getId());
+
+        assertNull(userRepository.findDtoById(user.getId()));
+    }
+
+    @Test
+    void findPage_AfterCreate_ShouldNotReturnStaleCachedPage() {
+        userRepository.create(createTestUser("first@example.com", "First"));
+        assertEquals(1, userRepository.findPage(null, 10).size());
+
+        userRepository.create(createTestUser("second@example.com", "Second"));
+
+        assertEquals(2, userRepository.findPage(null, 10).size());
+    }
+
+    @Test
+    void findPage_ShouldReturnUsersAfterGivenIdOrderedById() {
+        User user1 = createTestUser("first@example.com", "First");
+        User user2 = createTestUser("second@example.com", "Second");
+        User user3 = createTestUser("third@example.com", "Third");
+
+        em.getTransaction().begin();
+        em.persist(user1);
+        em.persist(user2);
+        em.persist(user3);
+        em.getTransaction().commit();
+
+        List<UserResponseDto> firstPage = userRepository.findPage(null, 2);
+        List<UserResponseDto> secondPage = userRepository.findPage(firstPage.get(1).id(), 2);
+
+        assertEquals(List.of(user1.getId(), user2.getId()), firstPage.stream().map(UserResponseDto::id).toList());
+        assertEquals(List.of(user3.getId()), secondPage.stream().map(UserResponseDto::id).toList());
+    }
+
+    @Test
+    void streamAll_ShouldReturnAllUsersAcrossPages() {
+        em.getTransaction().begin();
+        for (int i = 0; i < 5; i++) {
+            em.persist(createTestUser("user" + i + "@example.com", "User " + i));
+        }
+        em.getTransaction().commit();
+
+        try (Stream<UserResponseDto> users = userRepository.streamAll(2)) {
+            List<Long> ids = users.map(UserResponseDto::id).toList();
+
+            assertEquals(5, ids.size());
+            assertEquals(ids.stream().sorted().toList(), ids);
+        }
+    }
+
+    @Test
+    void streamAll_ShouldNotQueryBeforeTerminalOperation() {
+        try (Stream<UserResponseDto> users = userRepository.streamAll(2)) {
+            em.getTransaction().begin();
+            for (int i = 0; i < 3; i++) {
+                em.persist(createTestUser("late" + i + "@example.com", "Late " + i));
+            }
+            em.getTransaction().commit();
+
+            assertEquals(3, users.count());
+        }
+    }
+
     @Test
     void update_ShouldChangeUserData() {
         User user = createTestUser();
@@ -78,6 +243,7 @@ class UserRepositoryImplTest extends UserRepositoryContainer {
         updated.setAge(30);
 
         User result = userRepository.update(user.getId(), updated);
+        em.clear();
 
         assertNotNull(result);
         assertEquals(UPDATED_NAME, result.getName());
@@ -89,6 +255,19 @@ class UserRepositoryImplTest extends UserRepositoryContainer {
         assertEquals(UPDATED_EMAIL, found.getEmail());
     }
 
+    @Test
+    void update_WithStaleVersion_ShouldThrowConflictAndKeepData() {
+        User user = createTestUser();
+        userRepository.create(user);
+        userRepository.update(user.getId(), createTestUser(TEST_EMAIL, "First Writer"));
+
+        User stale = createTestUser(UPDATED_EMAIL, "Second Writer");
+        stale.setVersion(0L);
+
+        assertThrows(OptimisticLockException.class, () -> userRepository.update(user.getId(), stale));
+        assertEquals("First Writer", userRepository.findDtoById(user.getId()).name());
+    }
+
     @Test
     void update_WhenUserDoesNotExist_ShouldThrow() {
         User updatedUser = new User();
@@ -104,6 +283,86 @@ class UserRepositoryImplTest extends UserRepositoryContainer {
         assertEquals("Пользователь с id=999 не найден", ex.getCause().getMessage());
     }
 
+    @Test
+    void patch_ShouldChangeOnlyGivenFieldsAndIncrementVersion() {
+        User user = persist(createTestUser());
+
+        User result = userRepository.patch(user.getId(), UserPatchDto.builder().name(UPDATED_NAME).build());
+        em.clear();
+
+        User found = em.find(User.class, user.getId());
+        assertEquals(UPDATED_NAME, found.getName());
+        assertEquals(TEST_EMAIL, found.getEmail());
+        assertEquals(25, found.getAge());
+        assertEquals(user.getVersion() + 1, found.getVersion());
+        assertEquals(found.getVersion(), result.getVersion());
+    }
+
+    @Test
+    void patch_WithStaleVersion_ShouldThrowOptimisticLockException() {
+        User user = persist(createTestUser());
+        Long staleVersion = user.getVersion();
+        userRepository.patch(user.getId(), UserPatchDto.builder().age(40).version(staleVersion).build());
+
+        assertThrows(OptimisticLockException.class, () -> userRepository.patch(user.getId(),
+                UserPatchDto.builder().name(UPDATED_NAME).version(staleVersion).build()));
+
+        em.clear();
+        User found = em.find(User.class, user.getId());
+        assertEquals("Test User", found.getName());
+        assertEquals(40, found.getAge());
+    }
+
+    @Test
+    void patch_ConcurrentWriterWithOldState_ShouldNotOverwrite() {
+        User user = persist(createTestUser());
+        em.clear();
+        User loadedByOtherWriter = em.find(User.class, user.getId());
+
+        userRepository.patch(user.getId(), UserPatchDto.builder().email(UPDATED_EMAIL).build());
+
+        em.getTransaction().begin();
+        loadedByOtherWriter.setEmail("lost@example.com");
+        assertThrows(OptimisticLockException.class, () -> em.flush());
+        em.getTransaction().rollback();
+        em.clear();
+
+        assertEquals(UPDATED_EMAIL, em.find(User.class, user.getId()).getEmail());
+    }
+
+    @Test
+    void updateAll_ShouldPatchEveryUserInOneTransaction() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            users.add(createTestUser("bulk" + i + "@example.com", "Bulk " + i));
+        }
+        userRepository.createAll(users);
+
+        Map<Long, UserPatchDto> patches = new LinkedHashMap<>();
+        users.forEach(u -> patches.put(u.getId(), UserPatchDto.builder().age(50).build()));
+
+        List<User> updated = userRepository.updateAll(patches);
+        em.clear();
+
+        assertEquals(60, updated.size());
+        assertEquals(60L, em.createQuery("select count(u) from User u where u.age = 50", Long.class)
+                .getSingleResult());
+    }
+
+    @Test
+    void updateAll_WhenOneUserIsMissing_ShouldUpdateNothing() {
+        User user = persist(createTestUser());
+        Map<Long, UserPatchDto> patches = new LinkedHashMap<>();
+        patches.put(user.getId(), UserPatchDto.builder().age(50).build());
+        patches.put(999L, UserPatchDto.builder().age(50).build());
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> userRepository.updateAll(patches));
+        em.clear();
+
+        assertInstanceOf(UserNotFoundException.class, ex.getCause());
+        assertEquals(25, em.find(User.class, user.getId()).getAge());
+    }
+
     @Test
     void delete_ShouldRemoveUser() {
         User user = createTestUser();
@@ -115,6 +374,7 @@ class UserRepositoryImplTest extends UserRepositoryContainer {
         assertNotNull(em.find(User.class, id));
 
         userRepository.delete(id);
+        em.clear();
 
         assertNull(em.find(User.class, id));
     }
@@ -124,6 +384,146 @@ class UserRepositoryImplTest extends UserRepositoryContainer {
         assertDoesNotThrow(() -> userRepository.delete(999L));
     }
 
+    @Test
+    void deleteAll_ShouldDeleteInChunksAndReturnAffectedRows() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 1_500; i++) {
+            users.add(createTestUser("purge" + i + "@example.com", "Purge " + i));
+        }
+        userRepository.createAll(users);
+        Long kept = users.get(1_499).getId();
+        assertNotNull(userRepository.findDtoById(users.get(0).getId()));
+
+        List<Long> ids = new ArrayList<>(users.subList(0, 1_200).stream().map(User::getId).toList());
+        ids.add(999_999_999L);
+        int deleted = userRepository.deleteAll(ids);
+
+        assertEquals(1_200, deleted);
+        assertEquals(300L, em.createQuery("select count(u) from User u", Long.class).getSingleResult());
+        assertNull(userRepository.findDtoById(users.get(0).getId()));
+        assertNotNull(userRepository.findDtoById(kept));
+    }
+
+    @Test
+    void deleteWhere_ShouldDeleteOnlyMatchingUsers() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            User user = createTestUser("old" + i + "@example.com", "Old " + i);
+            user.setCreatedAt(LocalDate.of(2020, 1, 1).plusDays(i));
+            user.setAge(20 + i);
+            users.add(user);
+        }
+        users.add(createTestUser());
+        userRepository.createAll(users);
+
+        long deleted = userRepository.deleteWhere(UserCriteria.builder()
+                .createdBefore(LocalDate.of(2021, 1, 1))
+                .minAge(30)
+                .build());
+
+        assertEquals(20, deleted);
+        assertEquals(11L, em.createQuery("select count(u) from User u", Long.class).getSingleResult());
+    }
+
+    @Test
+    void deleteWhere_EmptyCriteria_ShouldThrowAndDeleteNothing() {
+        persist(createTestUser());
+
+        assertThrows(IllegalArgumentException.class, () -> userRepository.deleteWhere(UserCriteria.builder().build()));
+        assertEquals(1L, em.createQuery("select count(u) from User u", Long.class).getSingleResult());
+    }
+
+    @Test
+    void findByEmail_ShouldReturnMatchingUserOrNull() {
+        User user = persist(createTestUser());
+        persist(createTestUser("another@example.com", "Another User"));
+
+        UserResponseDto found = userRepository.findByEmail(TEST_EMAIL);
+
+        assertEquals(user.getId(), found.id());
+        assertNull(userRepository.findByEmail("missing@example.com"));
+    }
+
+    @Test
+    void findByEmail_RepeatedLookup_ShouldHitQueryCacheUntilUpdate() {
+        User user = createTestUser();
+        userRepository.create(user);
+        SecondLevelCacheMetrics metrics = new SecondLevelCacheMetrics(emf);
+
+        userRepository.findByEmail(TEST_EMAIL);
+        long hitsBefore = metrics.snapshot().queryHits();
+        userRepository.findByEmail(TEST_EMAIL);
+        assertTrue(metrics.snapshot().queryHits() > hitsBefore);
+
+        userRepository.update(user.getId(), createTestUser(TEST_EMAIL, UPDATED_NAME));
+
+        assertEquals(UPDATED_NAME, userRepository.findByEmail(TEST_EMAIL).name());
+    }
+
+    @Test
+    void search_ShouldCombineConditionsAndPageByKey() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            User user = createTestUser("search" + i + "@example.com", (i % 2 == 0 ? "Anna " : "Boris ") + i);
+            user.setAge(20 + i);
+            user.setCreatedAt(LocalDate.of(2022, 1, 1).plusDays(i));
+            users.add(user);
+        }
+        userRepository.createAll(users);
+        UserCriteria criteria = UserCriteria.builder()
+                .namePrefix("Anna")
+                .minAge(24)
+                .createdBefore(LocalDate.of(2022, 1, 17))
+                .build();
+
+        List<UserResponseDto> first = userRepository.search(criteria, null, 3);
+        List<UserResponseDto> second = userRepository.search(criteria, first.get(first.size() - 1).id(), 3);
+
+        assertEquals(List.of("Anna 4", "Anna 6", "Anna 8"), first.stream().map(UserResponseDto::name).toList());
+        assertEquals(List.of("Anna 10", "Anna 12", "Anna 14"), second.stream().map(UserResponseDto::name).toList());
+    }
+
+    @Test
+    void search_NamePrefixWithWildcards_ShouldMatchLiterally() {
+        persist(createTestUser("percent@example.com", "50% off"));
+        persist(createTestUser("other@example.com", "500 users"));
+
+        List<UserResponseDto> found = userRepository.search(UserCriteria.builder().namePrefix("50%").build(), null, 10);
+
+        assertEquals(List.of("50% off"), found.stream().map(UserResponseDto::name).toList());
+    }
+
+    @Test
+    void searchByText_ShouldFindMisspelledNameRankedBySimilarity() {
+        persist(createTestUser("jonathan.smith@example.com", "Jonathan Smith"));
+        persist(createTestUser("john.smyth@example.com", "John Smyth"));
+        persist(createTestUser("maria@example.com", "Maria Ivanova"));
+
+        List<UserResponseDto> found = userRepository.searchByText("Jonh Smyth", 10);
+
+        assertEquals("John Smyth", found.get(0).name());
+        assertTrue(found.stream().noneMatch(u -> u.name().equals("Maria Ivanova")));
+    }
+
+    @Test
+    void searchByText_ShouldMatchPartialEmailAndRespectLimit() {
+        for (int i = 0; i < 5; i++) {
+            persist(createTestUser("support" + i + "@example.com", "User " + i));
+        }
+
+        List<UserResponseDto> found = userRepository.searchByText("support3", 2);
+
+        assertEquals(2, found.size());
+        assertEquals("support3@example.com", found.get(0).email());
+    }
+
+    private User persist(User user) {
+        em.getTransaction().begin();
+        em.persist(user);
+        em.getTransaction().commit();
+        return user;
+    }
+
     private User createTestUser() {
         return createTestUser(TEST_EMAIL, "Test User");
     }
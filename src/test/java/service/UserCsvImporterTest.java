@@ -0,0 +1,163 @@
+package service;
+
+import dto.CopyLoadResult;
+import dto.ImportError;
+import dto.ImportResult;
+import dto.UserRequestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import repository.UserCopyLoader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCsvImporterTest {
+
+    @Mock
+    private UserCopyLoader copyLoader;
+
+    @TempDir
+    Path dir;
+
+    private final List<UserRequestDto> loaded = new ArrayList<>();
+    private final Function<UserRequestDto, String> violations =
+            dto -> dto.age() != null && dto.age() > 99 ? "Возраст не должен быть больше 99 лет" : null;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(copyLoader.load(any(), any(), anyInt())).thenAnswer(invocation -> {
+            Iterator<UserRequestDto> rows = invocation.getArgument(0);
+            long count = 0;
+            while (rows.hasNext()) {
+                loaded.add(rows.next());
+                count++;
+            }
+            return new CopyLoadResult(count, 0, 0);
+        });
+    }
+
+    @Test
+    void smallChunks_allRowsInFileOrderWithLineNumbers() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 2_000; i++) {
+            csv.append(i == 777 ? "broken row" : "User " + i + ",user" + i + "@example.com," + (i % 90 + 1) + ",01.02.2024")
+                    .append('\n');
+        }
+        Path file = write(csv.toString());
+
+        ImportResult result = importer(64, 3).importFile(file);
+
+        assertEquals(1_999, result.imported());
+        assertEquals(1, result.rejected());
+        assertEquals(List.of(new ImportError(777, "Ожидалось столбцов: 4, найдено: 1")), result.errors());
+        assertEquals(1_999, loaded.size());
+        assertEquals("User 1", loaded.get(0).name());
+        assertEquals("User 778", loaded.get(776).name());
+        assertEquals("User 2000", loaded.get(1_998).name());
+    }
+
+    @Test
+    void quotingDatesUtf8BomAndCrlf() throws IOException {
+        Path file = write("\uFEFFid,name,email,age,created_at\r\n"
+                + "1,\"Ёж \"\"Колючий\"\", 😀\",\"ez@example.com\",30,2024-01-02\r\n"
+                + "2,Анна,anna@example.com,25,15.03.2023\r\n"
+                + "\r\n"
+                + "3,,noname@example.com,25,15.03.2023\r\n"
+                + "4,\"\",,25,2023-03-15\r\n"
+                + "5,Old,old@example.com,120,2023-03-15\r\n"
+                + "6,Bad,bad@example.com,2x,2023-03-15\r\n"
+                + "7,Bad,bad@example.com,20,31.02.2023\r\n"
+                + "8,Bad,bad@example.com,20,2023/03/15\r\n"
+                + "9,\"Open,open@example.com,20,2023-03-15\r\n"
+                + "10,Last,last@example.com,40,2020-12-31");
+
+        ImportResult result = importer(1 << 20, 2).importFile(file);
+
+        assertEquals(5, result.imported());
+        assertEquals(5, result.rejected());
+        assertEquals(new UserRequestDto("Ёж \"Колючий\", 😀", "ez@example.com", 30, LocalDate.of(2024, 1, 2)),
+                loaded.get(0));
+        assertEquals(new UserRequestDto("Анна", "anna@example.com", 25, LocalDate.of(2023, 3, 15)), loaded.get(1));
+        assertNull(loaded.get(2).name());
+        assertEquals(new UserRequestDto("", null, 25, LocalDate.of(2023, 3, 15)), loaded.get(3));
+        assertEquals("Last", loaded.get(4).name());
+        assertEquals(List.of(7L, 8L, 9L, 10L, 11L), result.errors().stream().map(ImportError::line).toList());
+        assertEquals("Возраст не должен быть больше 99 лет", result.errors().get(0).message());
+        assertEquals("Возраст должен быть целым числом", result.errors().get(1).message());
+        assertTrue(result.errors().get(2).message().startsWith("Несуществующая дата"));
+    }
+
+    @Test
+    void rowsRejectedByDatabase_reportedByLineAndImportContinues() throws IOException {
+        doAnswer(invocation -> {
+            List<UserRequestDto> batch = new ArrayList<>();
+            invocation.<Iterator<UserRequestDto>>getArgument(0).forEachRemaining(batch::add);
+            if (batch.stream().anyMatch(dto -> "taken@example.com".equals(dto.email()))) {
+                throw new RuntimeException("Не удалось загрузить пользователей", new SQLException("duplicate key", "23505"));
+            }
+            loaded.addAll(batch);
+            return new CopyLoadResult(batch.size(), 0, 0);
+        }).when(copyLoader).load(any(), any(), anyInt());
+        StringBuilder csv = new StringBuilder("name,email,age,created_at\n");
+        for (int i = 1; i <= 500; i++) {
+            String email = i == 42 || i == 300 ? "taken@example.com" : "user" + i + "@example.com";
+            csv.append("User ").append(i).append(',').append(email).append(",30,01.02.2024\n");
+        }
+        Path file = write(csv.toString());
+
+        ImportResult result = importer(1 << 20, 2).importFile(file);
+
+        assertEquals(498, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(List.of(new ImportError(43, "Пользователь с таким email уже существует"),
+                new ImportError(301, "Пользователь с таким email уже существует")), result.errors());
+        assertEquals(498, loaded.size());
+        assertEquals("User 500", loaded.get(497).name());
+    }
+
+    @Test
+    void databaseUnavailable_abortsImport() throws IOException {
+        doThrow(new RuntimeException("Не удалось загрузить пользователей",
+                new SQLException("connection refused", "08001"))).when(copyLoader).load(any(), any(), anyInt());
+        Path file = write("User,user@example.com,30,01.02.2024\n");
+
+        assertThrows(RuntimeException.class, () -> importer(1 << 20, 2).importFile(file));
+        verify(copyLoader, times(1)).load(any(), any(), anyInt());
+    }
+
+    @Test
+    void headerWithoutRequiredColumn_rejected() throws IOException {
+        Path file = write("name,email,age\nUser,user@example.com,30\n");
+
+        assertThrows(IllegalArgumentException.class, () -> importer(1 << 20, 2).importFile(file));
+        verifyNoInteractions(copyLoader);
+    }
+
+    private UserCsvImporter importer(int chunkBytes, int maxChunksInFlight) {
+        return new UserCsvImporter(copyLoader, violations, ForkJoinPool.commonPool(), chunkBytes, maxChunksInFlight);
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
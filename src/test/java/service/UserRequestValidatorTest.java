@@ -0,0 +1,132 @@
+package service;
+
+import com.sun.management.ThreadMXBean;
+import dto.UserRequestDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Быстрая проверка должна совпадать с Bean Validation и по решению, и по сообщениям.
+ */
+class UserRequestValidatorTest {
+    private static final Validator BEAN_VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final UserRequestValidator validator = new UserRequestValidator(BEAN_VALIDATOR);
+
+    @Test
+    void constraintsOfUserRequestDto_arePrecompiled() {
+        assertTrue(validator.isPrecompiled());
+    }
+
+    @Test
+    void edgeCases_agreeWithBeanValidation() {
+        List<String> names = Arrays.asList(null, "", " ", "\t\n", " ", "Анна", " x ");
+        List<String> emails = new ArrayList<>(Arrays.asList(null, "", " ", "a@b", "a@b.c", "user+tag@example.com",
+                "first.last@sub.example.org", "@b.c", "a@", "a.@b.c", ".a@b.c", "a..b@c.d", "a@b..c", "a@.b",
+                "a@-b.c", "a@b-.c", "a@b.c.", "a@b.c-d.e", "\"quoted\"@example.com", "a@[127.0.0.1]",
+                "üser@example.com", "a@bücher.de", "a@b@c.d", "a b@c.d", "a@c_d.com", "a@1.2.3.4", "plainaddress",
+                "a@xn--bcher-kva.de", "{tag}|~@example.com"));
+        emails.add("a".repeat(64) + "@example.com");
+        emails.add("a".repeat(65) + "@example.com");
+        emails.add("a@" + "b".repeat(63) + ".com");
+        emails.add("a@" + "b".repeat(64) + ".com");
+        emails.add("a@" + ("b".repeat(60) + ".").repeat(4) + "com");
+        List<Integer> ages = Arrays.asList(null, -5, 0, 1, 42, 99, 100);
+        LocalDate today = LocalDate.now();
+        List<LocalDate> dates = Arrays.asList(null, today, today.minusDays(1), today.plusDays(1), LocalDate.MAX);
+
+        for (String name : names) {
+            for (String email : emails) {
+                for (Integer age : ages) {
+                    for (LocalDate date : dates) {
+                        assertAgrees(new UserRequestDto(name, email, age, date));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void randomEmails_agreeWithBeanValidation() {
+        String alphabet = "aZ09.-_+@!#$%&'*/=?^`{|}~\"[]() ,;:\\ü";
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder email = new StringBuilder();
+            int length = 1 + random.nextInt(16);
+            for (int j = 0; j < length; j++) {
+                email.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertAgrees(new UserRequestDto("Имя", email.toString(), 30, LocalDate.of(2020, 1, 1)));
+        }
+    }
+
+    @Test
+    void validDto_doesNotAllocate() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        UserRequestDto dto = new UserRequestDto("Test User", "test.user@example.com", 25, LocalDate.of(2020, 1, 1));
+        for (int i = 0; i < 10_000; i++) {
+            validator.violations(dto);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(validator.violations(dto).isEmpty());
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated < 100_000, "выделено байт на 100000 проверок: " + allocated);
+    }
+
+    @Test
+    void invalidDto_reportsAllViolationsSorted() {
+        UserRequestDto dto = new UserRequestDto(" ", "no-at-sign", 100, LocalDate.now().plusDays(1));
+
+        assertEquals(List.of("Email должен содержать @", "Возраст не должен быть больше 99 лет",
+                        "Дата не должна быть в будущем", "Имя не должно быть пустым"),
+                validator.violations(dto));
+    }
+
+    @Test
+    void missingEmail_rejectedOnFastPath() {
+        UserRequestDto dto = new UserRequestDto("Test User", null, 25, LocalDate.of(2020, 1, 1));
+
+        assertFalse(validator.isValid(dto));
+        assertEquals(List.of("Email не должен быть пустым"), validator.violations(dto));
+    }
+
+    @Test
+    void unknownConstraints_fallBackToBeanValidation() {
+        Validator beanValidator = mock(Validator.class);
+        UserRequestDto dto = new UserRequestDto("Test User", "test@example.com", 25, LocalDate.of(2020, 1, 1));
+        when(beanValidator.validate(dto)).thenReturn(Set.of());
+
+        UserRequestValidator fallback = new UserRequestValidator(beanValidator);
+
+        assertFalse(fallback.isPrecompiled());
+        assertTrue(fallback.isValid(dto));
+        verify(beanValidator).validate(dto);
+    }
+
+    private void assertAgrees(UserRequestDto dto) {
+        List<String> expected = BEAN_VALIDATOR.validate(dto).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+        assertEquals(expected.isEmpty(), validator.isValid(dto), () -> "isValid для " + dto);
+        assertEquals(expected, validator.violations(dto), () -> "нарушения для " + dto);
+    }
+}
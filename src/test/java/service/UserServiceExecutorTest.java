@@ -0,0 +1,101 @@
+package service;
+
+import dto.UserResponseDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceExecutorTest {
+
+    private static final int DB_PERMITS = 3;
+
+    @Mock
+    private UserService service;
+
+    private UserServiceExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new UserServiceExecutor(service, DB_PERMITS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void readUserById_completesWithServiceResult() throws Exception {
+        UserResponseDto expected = UserResponseDto.builder().id(1L).name("A").build();
+        when(service.readUserById(1L)).thenReturn(expected);
+
+        assertSame(expected, executor.readUserById(1L).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void readUserById_serviceFailure_completesExceptionally() {
+        when(service.readUserById(10L)).thenThrow(new IllegalArgumentException("Пользователь не найден"));
+
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> executor.readUserById(10L).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+    }
+
+    @Test
+    void readUserById_cacheHit_doesNotWaitForDbPermit() throws Exception {
+        UserResponseDto expected = UserResponseDto.builder().id(1L).name("A").build();
+        when(service.isCached(1L)).thenReturn(true);
+        when(service.readUserById(1L)).thenReturn(expected);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        List<CompletableFuture<Object>> dbWork = new ArrayList<>();
+        for (int i = 0; i < DB_PERMITS; i++) {
+            dbWork.add(executor.submit(release::join));
+        }
+        while (executor.availableDbPermits() > 0) {
+            Thread.onSpinWait();
+        }
+
+        assertSame(expected, executor.readUserById(1L).get(5, TimeUnit.SECONDS));
+
+        release.complete(null);
+        CompletableFuture.allOf(dbWork.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void submit_manyOperations_concurrencyCappedByDbPermits() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(executor.submit(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return 1;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertTrue(maxInFlight.get() <= DB_PERMITS);
+        assertEquals(DB_PERMITS, executor.availableDbPermits());
+    }
+}
@@ -0,0 +1,101 @@
+package service;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import service.UserServiceMetrics.Operation;
+import service.UserServiceMetrics.Phase;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserServiceMetricsTest {
+
+    private final UserServiceMetrics metrics = new UserServiceMetrics();
+
+    @Test
+    void record_percentilesPerPhase() {
+        for (int i = 1; i <= 1_000; i++) {
+            metrics.record(Operation.READ_BY_ID, Phase.DB, System.nanoTime() - TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        metrics.error(Operation.READ_BY_ID);
+
+        OperationMetricsMXBean readById = metrics.get(Operation.READ_BY_ID);
+        LatencySnapshot db = readById.getDb();
+        assertEquals(1_000, db.getCount());
+        assertEquals(500, db.getP50Micros(), 10);
+        assertEquals(990, db.getP99Micros(), 20);
+        assertTrue(db.getMaxMicros() >= 1_000);
+        assertEquals(0, readById.getValidation().getCount());
+        assertEquals(1, readById.getErrors());
+        assertEquals(0, metrics.get(Operation.CREATE).getCalls());
+    }
+
+    @Test
+    void recordNanos_recordsGivenDuration() {
+        metrics.recordNanos(Operation.READ_ALL, Phase.DB, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.recordNanos(Operation.READ_ALL, Phase.DB, -1);
+
+        LatencySnapshot db = metrics.get(Operation.READ_ALL).getDb();
+        assertEquals(2, db.getCount());
+        assertEquals(5_000, db.getMaxMicros(), 10);
+    }
+
+    @Test
+    void snapshot_accumulatesAcrossReads() {
+        metrics.record(Operation.CREATE, Phase.TOTAL, System.nanoTime());
+        assertEquals(1, metrics.get(Operation.CREATE).getCalls());
+
+        metrics.record(Operation.CREATE, Phase.TOTAL, System.nanoTime());
+        assertEquals(2, metrics.get(Operation.CREATE).getCalls());
+    }
+
+    @Test
+    void record_doesNotAllocate() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 10_000; i++) {
+            metrics.record(Operation.UPDATE, Phase.DB, System.nanoTime() - i);
+            metrics.error(Operation.UPDATE);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            long started = System.nanoTime() - i;
+            metrics.record(Operation.UPDATE, Phase.DB, started);
+            metrics.error(Operation.UPDATE);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated < 100_000, "выделено байт на 100000 записей: " + allocated);
+    }
+
+    @Test
+    void toPrometheusText_containsCountersAndQuantiles() {
+        metrics.record(Operation.DELETE, Phase.TOTAL, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(2));
+        metrics.error(Operation.DELETE);
+
+        String text = metrics.toPrometheusText();
+
+        assertTrue(text.contains("# TYPE user_service_duration_seconds summary"));
+        assertTrue(text.contains("user_service_errors_total{operation=\"delete\"} 1"));
+        assertTrue(text.contains("user_service_duration_seconds_count{operation=\"delete\",phase=\"total\"} 1"));
+        assertTrue(text.contains("user_service_duration_seconds{operation=\"delete\",phase=\"total\",quantile=\"0.999\"} 0.002"));
+    }
+
+    @Test
+    void global_registeredInJmx() throws Exception {
+        UserServiceMetrics.global().record(Operation.READ_ALL, Phase.TOTAL, System.nanoTime());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("service:type=UserServiceMetrics,operation=read_all");
+        CompositeData total = (CompositeData) server.getAttribute(name, "Total");
+
+        assertTrue((Long) server.getAttribute(name, "Calls") >= 1);
+        assertTrue((Long) total.get("count") >= 1);
+    }
+}
@@ -1,8 +1,15 @@
 package service;
 
+import dto.BatchCreateError;
+import dto.BatchCreateResult;
+import dto.CopyLoadResult;
+import dto.UserChangeBatch;
+import dto.UserCriteria;
+import dto.UserPatchDto;
 import dto.UserRequestDto;
 import dto.UserResponseDto;
 import entity.User;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import mapper.UserMapper;
@@ -12,11 +19,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import repository.UserCopyLoader;
+import repository.UserNotFoundException;
 import repository.UserRepository;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -83,7 +105,127 @@ class UserServiceTest {
     }
 
     @Test
-    void readAllUsers_returnsListFromRepo() {
+    void createUser_metricsSplitIntoValidationAndDbPhases() {
+        when(validator.validate(dto)).thenReturn(Set.of()).thenThrow(new IllegalStateException("boom"));
+        when(mapper.toEntity(dto)).thenReturn(user);
+
+        service.createUser(dto);
+        assertThrows(IllegalStateException.class, () -> service.createUser(dto));
+
+        OperationMetricsMXBean create = service.metrics().get(UserServiceMetrics.Operation.CREATE);
+        assertEquals(2, create.getCalls());
+        assertEquals(1, create.getErrors());
+        assertEquals(1, create.getValidation().getCount());
+        assertEquals(1, create.getDb().getCount());
+    }
+
+    @Test
+    void createUserAsync_writeBehind_completesWithIdAfterGroupCommit() throws Exception {
+        when(validator.validate(dto)).thenReturn(Set.of());
+        user.setId(null);
+        when(mapper.toEntity(dto)).thenReturn(user);
+        doAnswer(invocation -> {
+            invocation.<Collection<User>>getArgument(0).forEach(saved -> saved.setId(7L));
+            return null;
+        }).when(repository).createAll(anyCollection());
+
+        try (UserWriteBehindQueue queue = new UserWriteBehindQueue(repository, 10, 10, Duration.ZERO, Duration.ZERO)) {
+            service.enableWriteBehind(queue);
+
+            assertEquals(7L, service.createUserAsync(dto).get(5, TimeUnit.SECONDS));
+        }
+        verify(repository, never()).create(any());
+    }
+
+    @Test
+    void createUserAsync_invalidData_failsWithoutQueueing() {
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<UserRequestDto> violation =
+                (ConstraintViolation<UserRequestDto>) mock(ConstraintViolation.class);
+        when(validator.validate(dto)).thenReturn(Set.of(violation));
+
+        try (UserWriteBehindQueue queue = new UserWriteBehindQueue(repository, 10, 10, Duration.ZERO, Duration.ZERO)) {
+            service.enableWriteBehind(queue);
+
+            ExecutionException ex = assertThrows(ExecutionException.class,
+                    () -> service.createUserAsync(dto).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        }
+        verify(repository, never()).createAll(any());
+    }
+
+    @Test
+    void createUsers_invalidDtos_reportedAndValidOnesSaved() {
+        UserRequestDto invalid = UserRequestDto.builder().name("").age(0).build();
+
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<UserRequestDto> violation =
+                (ConstraintViolation<UserRequestDto>) mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("Имя не должно быть пустым");
+
+        when(validator.validate(dto)).thenReturn(Set.of());
+        when(validator.validate(invalid)).thenReturn(Set.of(violation));
+
+        BatchCreateResult result = service.createUsers(List.of(dto, invalid, dto));
+
+        assertEquals(2, result.created());
+        assertEquals(1, result.errors().size());
+        assertEquals(1, result.errors().get(0).index());
+        assertSame(invalid, result.errors().get(0).dto());
+        assertEquals("Имя не должно быть пустым", result.errors().get(0).message());
+        verify(repository).createAll(argThat(users -> users.size() == 2));
+    }
+
+    @Test
+    void createUsers_chunkFailure_allDtosOfChunkReported() {
+        when(validator.validate(dto)).thenReturn(Set.of());
+        doThrow(new RuntimeException("db down")).when(repository).createAll(any());
+
+        BatchCreateResult result = service.createUsers(List.of(dto, dto));
+
+        assertEquals(0, result.created());
+        assertEquals(List.of(0, 1), result.errors().stream().map(BatchCreateError::index).toList());
+    }
+
+    @Test
+    void loadUsers_invalidDtosRejectedByValidator() {
+        UserCopyLoader copyLoader = mock(UserCopyLoader.class);
+        UserService loadingService = new UserService(repository, copyLoader, mapper, validator);
+        UserRequestDto invalid = UserRequestDto.builder().name("").build();
+
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<UserRequestDto> violation =
+                (ConstraintViolation<UserRequestDto>) mock(ConstraintViolation.class);
+        when(validator.validate(dto)).thenReturn(Set.of());
+        when(validator.validate(invalid)).thenReturn(Set.of(violation));
+        when(copyLoader.load(any(), any(), eq(100))).thenAnswer(invocation -> {
+            Iterator<UserRequestDto> rows = invocation.getArgument(0);
+            Predicate<UserRequestDto> accept = invocation.getArgument(1);
+            long loaded = 0;
+            long rejected = 0;
+            while (rows.hasNext()) {
+                if (accept.test(rows.next())) {
+                    loaded++;
+                } else {
+                    rejected++;
+                }
+            }
+            return new CopyLoadResult(loaded, rejected, 1);
+        });
+
+        CopyLoadResult result = loadingService.loadUsers(Stream.of(dto, invalid, dto), 100);
+
+        assertEquals(2, result.loaded());
+        assertEquals(1, result.rejected());
+    }
+
+    @Test
+    void loadUsers_withoutCopyLoader_exceptionThrown() {
+        assertThrows(IllegalStateException.class, () -> service.loadUsers(Stream.of(dto), 100));
+    }
+
+    @Test
+    void readAllUsers_returnsStreamFromRepo() {
         List<UserResponseDto> list = List.of(
                 UserResponseDto.builder()
                         .id(1L)
@@ -94,19 +236,101 @@ class UserServiceTest {
                         .build()
         );
 
-        when(repository.findAll()).thenReturn(list);
+        when(repository.streamAll(anyInt())).thenReturn(list.stream());
 
-        List<UserResponseDto> result = service.readAllUsers();
+        List<UserResponseDto> result = service.readAllUsers().toList();
 
         assertEquals(1, result.size());
         assertEquals("A", result.get(0).name());
-        verify(repository).findAll();
+        verify(repository).streamAll(anyInt());
+        verify(repository, never()).findAll();
     }
 
     @Test
-    void readUserById_existingUser_returnsDto() {
-        when(repository.findById(1L)).thenReturn(user);
+    void readAllUsers_failureOnLaterPage_countedAsError() {
+        UserResponseDto first = UserResponseDto.builder().id(1L).name("A").build();
+        when(repository.streamAll(anyInt())).thenReturn(Stream.of(1, 2).map(page -> {
+            if (page == 2) {
+                throw new RuntimeException("Не удалось получить страницу пользователей");
+            }
+            return first;
+        }));
+
+        Stream<UserResponseDto> users = service.readAllUsers();
+        Iterator<UserResponseDto> iterator = users.iterator();
+        assertEquals(first, iterator.next());
+        RuntimeException ex = assertThrows(RuntimeException.class, iterator::hasNext);
+        users.close();
+
+        OperationMetricsMXBean readAll = service.metrics().get(UserServiceMetrics.Operation.READ_ALL);
+        assertEquals("Не удалось получить список пользователей", ex.getMessage());
+        assertEquals(1, readAll.getErrors());
+        assertEquals(1, readAll.getCalls());
+        assertEquals(1, readAll.getDb().getCount());
+    }
+
+    @Test
+    void readAllUsers_notClosed_recordedWhenExhausted() {
+        when(repository.streamAll(anyInt())).thenReturn(Stream.empty());
+
+        assertEquals(List.of(), service.readAllUsers().toList());
+
+        assertEquals(1, service.metrics().get(UserServiceMetrics.Operation.READ_ALL).getCalls());
+    }
+
+    @Test
+    void readUsersPage_returnsPageFromRepo() {
+        List<UserResponseDto> page = List.of(
+                UserResponseDto.builder().id(6L).name("B").build(),
+                UserResponseDto.builder().id(7L).name("C").build()
+        );
+
+        when(repository.findPage(5L, 2)).thenReturn(page);
+
+        List<UserResponseDto> result = service.readUsersPage(5L, 2);
+
+        assertEquals(page, result);
+        verify(repository).findPage(5L, 2);
+    }
+
+    @Test
+    void readUsersPage_invalidLimit_exceptionThrown() {
+        assertThrows(IllegalArgumentException.class, () -> service.readUsersPage(null, 0));
+        verify(repository, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    void searchUsers_invalidAgeRange_exceptionThrown() {
+        UserCriteria criteria = UserCriteria.builder().minAge(40).maxAge(30).build();
+
+        assertThrows(IllegalArgumentException.class, () -> service.searchUsers(criteria, null, 10));
+        verify(repository, never()).search(any(), any(), anyInt());
+    }
+
+    @Test
+    void searchUsersByText_limitCappedAndTextTrimmed() {
+        when(repository.searchByText("smith", 100)).thenReturn(List.of());
+
+        service.searchUsers("  smith ", 10_000);
+
+        verify(repository).searchByText("smith", 100);
+    }
+
+    @Test
+    void searchUsersByText_blankText_exceptionThrown() {
+        assertThrows(IllegalArgumentException.class, () -> service.searchUsers(" ", 10));
+        verify(repository, never()).searchByText(any(), anyInt());
+    }
 
+    @Test
+    void readUserByEmail_missingUser_notFoundThrown() {
+        when(repository.findByEmail("missing@example.com")).thenReturn(null);
+
+        assertThrows(UserNotFoundException.class, () -> service.readUserByEmail("missing@example.com"));
+    }
+
+    @Test
+    void readUserById_existingUser_returnsDto() {
         UserResponseDto expected = UserResponseDto.builder()
                 .id(1L)
                 .name("Test User")
@@ -115,22 +339,93 @@ class UserServiceTest {
                 .createdAt(dto.created_at())
                 .build();
 
-        when(mapper.toDto(user)).thenReturn(expected);
+        when(repository.findDtoById(1L)).thenReturn(expected);
 
         UserResponseDto actual = service.readUserById(1L);
 
         assertEquals(1L, actual.id());
         assertEquals("Test User", actual.name());
-        verify(repository).findById(1L);
+        verify(repository).findDtoById(1L);
+        verify(repository, never()).findById(any());
+        verifyNoInteractions(mapper);
     }
 
     @Test
     void readUserById_userNotFound_exception() {
-        when(repository.findById(10L)).thenReturn(null);
+        when(repository.findDtoById(10L)).thenReturn(null);
 
         assertThrows(IllegalArgumentException.class, () -> service.readUserById(10L));
     }
 
+    @Test
+    void readUserById_repeatedLookup_servedFromCache() {
+        UserResponseDto expected = UserResponseDto.builder().id(1L).name("Test User").build();
+        when(repository.findDtoById(1L)).thenReturn(expected);
+
+        service.readUserById(1L);
+        UserResponseDto actual = service.readUserById(1L);
+
+        assertSame(expected, actual);
+        verify(repository, times(1)).findDtoById(1L);
+        assertEquals(1, service.cacheStats().hits());
+        assertEquals(1, service.cacheStats().misses());
+    }
+
+    @Test
+    void isCached_reflectsCacheWithoutCountingLookups() {
+        when(repository.findDtoById(1L)).thenReturn(UserResponseDto.builder().id(1L).name("Test User").build());
+
+        assertFalse(service.isCached(1L));
+        service.readUserById(1L);
+
+        assertTrue(service.isCached(1L));
+        assertEquals(0, service.cacheStats().hits());
+        assertEquals(1, service.cacheStats().misses());
+    }
+
+    @Test
+    void readUserById_concurrentMisses_singleRepositoryCall() throws Exception {
+        UserResponseDto expected = UserResponseDto.builder().id(1L).name("Test User").build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findDtoById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return expected;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<UserResponseDto>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> service.readUserById(1L)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.submit(() -> service.readUserById(1L)));
+            }
+            release.countDown();
+
+            for (Future<UserResponseDto> future : futures) {
+                assertSame(expected, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(repository, times(1)).findDtoById(1L);
+    }
+
+    @Test
+    void deleteUser_invalidatesCachedUser() {
+        when(repository.findDtoById(1L))
+                .thenReturn(UserResponseDto.builder().id(1L).build())
+                .thenReturn(null);
+
+        service.readUserById(1L);
+        service.deleteUser(1L);
+
+        assertThrows(IllegalArgumentException.class, () -> service.readUserById(1L));
+        verify(repository, times(2)).findDtoById(1L);
+    }
+
     @Test
     void updateUser_validData_updatesUser() {
         UserRequestDto update = UserRequestDto.builder()
@@ -175,6 +470,140 @@ class UserServiceTest {
         assertEquals("u@mail.com", result.email());
     }
 
+    @Test
+    void updateUser_invalidatesCachedUser() {
+        UserResponseDto cached = UserResponseDto.builder().id(1L).name("Old").build();
+        UserResponseDto fresh = UserResponseDto.builder().id(1L).name("Test User").build();
+        when(repository.findDtoById(1L)).thenReturn(cached).thenReturn(fresh);
+        when(validator.validate(dto)).thenReturn(Set.of());
+        when(repository.update(eq(1L), any())).thenReturn(user);
+
+        service.readUserById(1L);
+        service.updateUser(1L, dto);
+
+        assertEquals("Test User", service.readUserById(1L).name());
+    }
+
+    @Test
+    void updateUser_expectedVersion_passedToRepository() {
+        when(validator.validate(dto)).thenReturn(Set.of());
+        when(repository.update(eq(1L), argThat(entity -> Long.valueOf(4L).equals(entity.getVersion())))).thenReturn(user);
+
+        service.updateUser(1L, dto, 4L);
+
+        verify(repository).update(eq(1L), argThat(entity -> Long.valueOf(4L).equals(entity.getVersion())));
+    }
+
+    @Test
+    void applyRemoteChanges_evictsChangedUsersAndResyncClearsAll() {
+        UserResponseDto first = UserResponseDto.builder().id(1L).name("First").build();
+        UserResponseDto second = UserResponseDto.builder().id(2L).name("Second").build();
+        when(repository.findDtoById(1L)).thenReturn(first);
+        when(repository.findDtoById(2L)).thenReturn(second);
+        service.readUserById(1L);
+        service.readUserById(2L);
+
+        service.applyRemoteChanges(new UserChangeBatch(Set.of(1L), Set.of(), 0, false));
+        service.readUserById(1L);
+        service.readUserById(2L);
+        service.applyRemoteChanges(UserChangeBatch.resyncAll());
+        service.readUserById(2L);
+
+        verify(repository, times(2)).findDtoById(1L);
+        verify(repository, times(2)).findDtoById(2L);
+    }
+
+    @Test
+    void patchUser_validFields_onlyGivenFieldsValidatedAndCacheInvalidated() {
+        UserPatchDto patch = UserPatchDto.builder().name("Patched").version(0L).build();
+        UserResponseDto cached = UserResponseDto.builder().id(1L).name("Old").build();
+        when(repository.findDtoById(1L)).thenReturn(cached).thenReturn(cached);
+        when(repository.patch(1L, patch)).thenReturn(user);
+
+        service.readUserById(1L);
+        service.patchUser(1L, patch);
+        service.readUserById(1L);
+
+        verify(validator).validateValue(UserRequestDto.class, "name", "Patched");
+        verify(validator, never()).validateValue(eq(UserRequestDto.class), eq("email"), any());
+        verify(repository, times(2)).findDtoById(1L);
+    }
+
+    @Test
+    void patchUser_invalidField_exceptionThrown() {
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<UserRequestDto> violation =
+                (ConstraintViolation<UserRequestDto>) mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("Возраст не должен быть больше 99 лет");
+        when(validator.validateValue(UserRequestDto.class, "age", 120)).thenReturn(Set.of(violation));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.patchUser(1L, UserPatchDto.builder().age(120).build()));
+
+        assertEquals("Возраст не должен быть больше 99 лет", ex.getMessage());
+        verify(repository, never()).patch(any(), any());
+    }
+
+    @Test
+    void updateUser_mappingRecordedSeparatelyFromValidation() {
+        when(validator.validate(dto)).thenReturn(Set.of());
+        when(repository.update(eq(1L), any())).thenReturn(user);
+
+        service.updateUser(1L, dto);
+
+        OperationMetricsMXBean update = service.metrics().get(UserServiceMetrics.Operation.UPDATE);
+        assertEquals(1, update.getValidation().getCount());
+        assertEquals(1, update.getMapping().getCount());
+        assertEquals(1, update.getDb().getCount());
+    }
+
+    @Test
+    void patchUser_versionConflict_propagatedAsOptimisticLockException() {
+        UserPatchDto patch = UserPatchDto.builder().name("Patched").version(3L).build();
+        when(repository.patch(1L, patch)).thenThrow(new OptimisticLockException("Пользователь с id=1 изменен"));
+
+        assertThrows(OptimisticLockException.class, () -> service.patchUser(1L, patch));
+        assertEquals(1, service.metrics().get(UserServiceMetrics.Operation.UPDATE).getErrors());
+    }
+
+    @Test
+    void patchUsers_allValid_repositoryUpdateAllCalled() {
+        Map<Long, UserPatchDto> patches = Map.of(1L, UserPatchDto.builder().age(30).build());
+        when(repository.updateAll(patches)).thenReturn(List.of(user));
+
+        List<UserResponseDto> result = service.patchUsers(patches);
+
+        assertEquals(1, result.size());
+        verify(repository).updateAll(patches);
+    }
+
+    @Test
+    void deleteUsers_deletesAndInvalidatesCachedUsers() {
+        UserResponseDto cached = UserResponseDto.builder().id(1L).name("Old").build();
+        when(repository.findDtoById(1L)).thenReturn(cached);
+        when(repository.deleteAll(List.of(1L, 2L))).thenReturn(2);
+
+        service.readUserById(1L);
+        assertEquals(2, service.deleteUsers(List.of(1L, 2L)));
+        service.readUserById(1L);
+
+        verify(repository, times(2)).findDtoById(1L);
+    }
+
+    @Test
+    void deleteUsersWhere_emptyCriteria_exceptionThrown() {
+        assertThrows(IllegalArgumentException.class, () -> service.deleteUsersWhere(UserCriteria.builder().build()));
+        verify(repository, never()).deleteWhere(any());
+    }
+
+    @Test
+    void deleteUsersWhere_returnsRepositoryCount() {
+        UserCriteria criteria = UserCriteria.builder().createdBefore(LocalDate.of(2024, 1, 1)).build();
+        when(repository.deleteWhere(criteria)).thenReturn(42L);
+
+        assertEquals(42L, service.deleteUsersWhere(criteria));
+    }
+
     @Test
     void deleteUser_validId_repositoryCalled() {
         service.deleteUser(1L);
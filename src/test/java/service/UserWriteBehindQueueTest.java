@@ -0,0 +1,139 @@
+package service;
+
+import entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import repository.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserWriteBehindQueueTest {
+
+    @Mock
+    private UserRepository repository;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @Test
+    void submit_manyUsers_savedInGroupCommitsBySize() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            Collection<User> users = invocation.getArgument(0);
+            batchSizes.add(users.size());
+            users.forEach(user -> user.setId(ids.incrementAndGet()));
+            return null;
+        }).when(repository).createAll(anyCollection());
+
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        try (UserWriteBehindQueue queue = queue(1_000, 50, Duration.ofSeconds(5))) {
+            for (int i = 0; i < 100; i++) {
+                futures.add(queue.submit(user(i)));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of(50, 50), batchSizes);
+        assertTrue(futures.stream().allMatch(future -> future.join().getId() != null));
+        verify(repository, never()).create(any());
+    }
+
+    @Test
+    void failedGroupCommit_retriedOneByOne_onlyOffenderFails() throws Exception {
+        doThrow(new RuntimeException("Не удалось создать пользователей")).when(repository).createAll(anyCollection());
+        doAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            if (user.getEmail().equals("user1@example.com")) {
+                throw new RuntimeException("Не удалось создать пользователя");
+            }
+            user.setId(ids.incrementAndGet());
+            return null;
+        }).when(repository).create(any());
+
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        try (UserWriteBehindQueue queue = queue(1_000, 3, Duration.ofSeconds(5))) {
+            for (int i = 0; i < 3; i++) {
+                User user = user(i);
+                user.setId(100L + i);
+                futures.add(queue.submit(user));
+            }
+            CompletableFuture.allOf(futures.get(0), futures.get(2)).get(5, TimeUnit.SECONDS);
+            assertThrows(ExecutionException.class, () -> futures.get(1).get(5, TimeUnit.SECONDS));
+        }
+
+        verify(repository).createAll(anyCollection());
+        verify(repository, times(3)).create(any());
+        assertEquals(1L, futures.get(0).join().getId());
+        assertEquals(2L, futures.get(2).join().getId());
+    }
+
+    @Test
+    void fullQueue_rejectsAfterOfferTimeout() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            flushing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(repository).createAll(anyCollection());
+
+        try (UserWriteBehindQueue queue = queue(1, 1, Duration.ZERO)) {
+            CompletableFuture<User> inFlush = queue.submit(user(0));
+            assertTrue(flushing.await(5, TimeUnit.SECONDS));
+            CompletableFuture<User> queued = queue.submit(user(1));
+
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> queue.submit(user(2)).get());
+            assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+
+            release.countDown();
+            CompletableFuture.allOf(inFlush, queued).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void close_drainsQueuedUsersAndRejectsNewOnes() throws Exception {
+        UserWriteBehindQueue queue = queue(1_000, 1_000, Duration.ofMinutes(1));
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(queue.submit(user(i)));
+        }
+
+        long started = System.nanoTime();
+        queue.close();
+
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(10));
+        assertTrue(futures.stream().allMatch(future -> future.isDone() && !future.isCompletedExceptionally()));
+        assertEquals(0, queue.pending());
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> queue.submit(user(5)).get());
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    private UserWriteBehindQueue queue(int capacity, int batchSize, Duration window) {
+        return new UserWriteBehindQueue(repository, capacity, batchSize, window, Duration.ofMillis(50));
+    }
+
+    private User user(int i) {
+        return User.builder()
+                .name("User " + i)
+                .email("user" + i + "@example.com")
+                .age(30)
+                .createdAt(LocalDate.of(2020, 1, 1))
+                .build();
+    }
+}